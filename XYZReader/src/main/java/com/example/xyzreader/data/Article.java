@@ -0,0 +1,49 @@
+package com.example.xyzreader.data;
+
+/**
+ * An article with everything the detail screen shows. Instances are immutable, so they can be
+ * shared between threads through {@link ArticleCache}.
+ */
+public class Article {
+    private final long mId;
+    private final String mTitle;
+    private final String mAuthor;
+    private final String mBody;
+    private final String mPhotoUrl;
+    private final long mPublishedDate;
+
+    Article(long id, String title, String author, String body, String photoUrl,
+            long publishedDate) {
+        mId = id;
+        mTitle = title;
+        mAuthor = author;
+        mBody = body;
+        mPhotoUrl = photoUrl;
+        mPublishedDate = publishedDate;
+    }
+
+    public long getId() {
+        return mId;
+    }
+
+    public String getTitle() {
+        return mTitle;
+    }
+
+    public String getAuthor() {
+        return mAuthor;
+    }
+
+    public String getBody() {
+        return mBody;
+    }
+
+    public String getPhotoUrl() {
+        return mPhotoUrl;
+    }
+
+    /** Publication time in epoch millis. */
+    public long getPublishedDate() {
+        return mPublishedDate;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.support.v4.util.LruCache;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide cache of fully loaded {@link Article}s for the detail screen. Articles around
+ * the current pager position are loaded ahead of time on a background thread, so swiping to
+ * a neighbour finds its article in memory. Entries are evicted as soon as the provider reports
+ * a change to them.
+ */
+public class ArticleCache {
+    /** Upper bound on the cached characters, dominated by article bodies. */
+    private static final int MAX_SIZE_CHARS = 2 * 1024 * 1024;
+
+    private static ArticleCache sInstance;
+
+    private final ContentResolver mResolver;
+    private final Executor mExecutor = Executors.newSingleThreadExecutor();
+    private final LruCache<Long, Article> mCache = new LruCache<Long, Article>(MAX_SIZE_CHARS) {
+        @Override
+        protected int sizeOf(Long id, Article article) {
+            return article.getBody().length() + article.getTitle().length() + 64;
+        }
+    };
+    /** Bumped on every change, so loads that raced with a change are not cached. */
+    private volatile int mGeneration;
+
+    interface Query {
+        String[] PROJECTION = {
+                ItemsContract.Items._ID,
+                ItemsContract.Items.TITLE,
+                ItemsContract.Items.PUBLISHED_DATE,
+                ItemsContract.Items.AUTHOR,
+                ItemsContract.Items.PHOTO_URL,
+                ItemsContract.Items.BODY,
+        };
+
+        int _ID = 0;
+        int TITLE = 1;
+        int PUBLISHED_DATE = 2;
+        int AUTHOR = 3;
+        int PHOTO_URL = 4;
+        int BODY = 5;
+    }
+
+    public static synchronized ArticleCache get(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private ArticleCache(Context context) {
+        mResolver = context.getContentResolver();
+        // No handler: evict on the notifying thread, before anyone can re-read the entry
+        mResolver.registerContentObserver(ItemsContract.Items.buildDirUri(), true,
+                new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        onChange(selfChange, null);
+                    }
+
+                    @Override
+                    public void onChange(boolean selfChange, Uri uri) {
+                        invalidate(uri);
+                    }
+                });
+    }
+
+    /** Returns the cached article, or null without touching the database. */
+    public Article peek(long id) {
+        return mCache.get(id);
+    }
+
+    /**
+     * Reads the article from the database on the calling thread and caches it. Returns null
+     * if there is no such article.
+     */
+    public Article load(long id) {
+        int generation = mGeneration;
+        Cursor cursor = mResolver.query(ItemsContract.Items.buildItemUri(id), Query.PROJECTION,
+                null, null, null);
+        if (cursor == null) {
+            return null;
+        }
+        Article article = null;
+        try {
+            if (cursor.moveToFirst()) {
+                article = new Article(
+                        cursor.getLong(Query._ID),
+                        cursor.getString(Query.TITLE),
+                        cursor.getString(Query.AUTHOR),
+                        // Null if the stored body could not be decompressed
+                        cursor.isNull(Query.BODY) ? "" : cursor.getString(Query.BODY),
+                        cursor.getString(Query.PHOTO_URL),
+                        cursor.getLong(Query.PUBLISHED_DATE));
+            }
+        } finally {
+            cursor.close();
+        }
+        if (article != null && generation == mGeneration) {
+            mCache.put(id, article);
+        }
+        return article;
+    }
+
+    /**
+     * Loads the articles within {@code radius} positions of {@code position} in {@code index}
+     * in the background, nearest first.
+     */
+    public void prefetch(final ArticleIndex index, final int position, final int radius) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int distance = 0; distance <= radius; distance++) {
+                    prefetch(index, position + distance);
+                    if (distance > 0) {
+                        prefetch(index, position - distance);
+                    }
+                }
+            }
+        });
+    }
+
+    private void prefetch(ArticleIndex index, int position) {
+        if (position >= 0 && position < index.size() && peek(index.getId(position)) == null) {
+            load(index.getId(position));
+        }
+    }
+
+    private void invalidate(Uri uri) {
+        if (ItemsContract.Items.buildChangesUri().equals(uri)) {
+            // Follows the notifications of the changed items themselves
+            return;
+        }
+        mGeneration++;
+        if (uri != null && uri.getPathSegments().size() == 2) {
+            try {
+                mCache.remove(ItemsContract.Items.getItemId(uri));
+                return;
+            } catch (NumberFormatException ignored) {
+                // Not an item URI; fall through and drop everything
+            }
+        }
+        mCache.evictAll();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.xyzreader.data;
+
+import android.content.Context;
+
+/**
+ * Loads a single {@link Article} through the {@link ArticleCache}. An article that is already
+ * cached is delivered as soon as loading starts, without a database round trip.
+ */
+public class ArticleDetailLoader extends ContentObservingLoader<Article> {
+    private final long mItemId;
+    private final ArticleCache mCache;
+
+    public ArticleDetailLoader(Context context, long itemId) {
+        super(context, ItemsContract.Items.buildItemUri(itemId), false);
+        mItemId = itemId;
+        mCache = ArticleCache.get(context);
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (getResult() == null) {
+            setResult(mCache.peek(mItemId));
+        }
+        super.onStartLoading();
+    }
+
+    @Override
+    public Article loadInBackground() {
+        return mCache.load(mItemId);
+    }
+}
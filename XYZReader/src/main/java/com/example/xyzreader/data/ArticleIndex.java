@@ -0,0 +1,33 @@
+package com.example.xyzreader.data;
+
+import java.util.HashMap;
+
+/**
+ * The ids of all articles in list order, with constant-time lookup of an id's position.
+ */
+public class ArticleIndex {
+    private final long[] mIds;
+    private final HashMap<Long, Integer> mPositions;
+
+    ArticleIndex(long[] ids) {
+        mIds = ids;
+        mPositions = new HashMap<>(ids.length * 4 / 3 + 1);
+        for (int i = 0; i < ids.length; i++) {
+            mPositions.put(ids[i], i);
+        }
+    }
+
+    public int size() {
+        return mIds.length;
+    }
+
+    public long getId(int position) {
+        return mIds[position];
+    }
+
+    /** Returns the position of the article with {@code id}, or -1 if it is not in the index. */
+    public int indexOf(long id) {
+        Integer position = mPositions.get(id);
+        return position != null ? position : -1;
+    }
+}
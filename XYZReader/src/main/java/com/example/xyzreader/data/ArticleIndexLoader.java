@@ -0,0 +1,33 @@
+package com.example.xyzreader.data;
+
+import android.content.Context;
+import android.database.Cursor;
+
+/**
+ * Loads the {@link ArticleIndex} of all articles, reading nothing but their ids.
+ */
+public class ArticleIndexLoader extends ContentObservingLoader<ArticleIndex> {
+    private static final String[] PROJECTION = { ItemsContract.Items._ID };
+
+    public ArticleIndexLoader(Context context) {
+        super(context, ItemsContract.Items.buildChangesUri(), false);
+    }
+
+    @Override
+    public ArticleIndex loadInBackground() {
+        Cursor cursor = getContext().getContentResolver().query(ItemsContract.Items.buildDirUri(),
+                PROJECTION, null, null, ItemsContract.Items.DEFAULT_SORT);
+        if (cursor == null) {
+            return new ArticleIndex(new long[0]);
+        }
+        try {
+            long[] ids = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+            }
+            return new ArticleIndex(ids);
+        } finally {
+            cursor.close();
+        }
+    }
+}
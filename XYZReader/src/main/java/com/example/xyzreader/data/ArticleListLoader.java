@@ -0,0 +1,88 @@
+package com.example.xyzreader.data;
+
+import android.content.Context;
+
+/**
+ * Loads the article list page by page. The first load fetches one page; {@link #loadMore()}
+ * appends the next one. When the items change, the window is reloaded from the top with as
+ * many rows as were already shown, so the user keeps their place.
+ * <p>
+ * Given a search query, it instead loads the best matching articles as a single window.
+ */
+public class ArticleListLoader extends ContentObservingLoader<ArticleListWindow> {
+    /** Number of search results shown for a query. */
+    private static final int SEARCH_LIMIT = 100;
+
+    private final ArticlePageSource mSource;
+    private final String mQuery;
+
+    /** Number of rows the UI wants loaded. */
+    private volatile int mRequestedCount = ArticlePageSource.PAGE_SIZE;
+
+    public ArticleListLoader(Context context) {
+        this(context, null);
+    }
+
+    public ArticleListLoader(Context context, String query) {
+        super(context, ItemsContract.Items.buildChangesUri(), false);
+        mSource = new ArticlePageSource(context.getContentResolver());
+        mQuery = query;
+    }
+
+    /**
+     * Requests the page following the current window. Does nothing if the end of the list
+     * has been reached or a page is already on its way.
+     */
+    public void loadMore() {
+        ArticleListWindow window = getResult();
+        if (window == null || !window.hasMore() || mRequestedCount > window.size()) {
+            return;
+        }
+        mRequestedCount = window.size() + ArticlePageSource.PAGE_SIZE;
+        forceLoad();
+    }
+
+    @Override
+    public ArticleListWindow loadInBackground() {
+        if (mQuery != null) {
+            return mSource.search(mQuery, SEARCH_LIMIT);
+        }
+
+        ArticleListWindow window = getResult();
+        int requested = mRequestedCount;
+
+        if (window == null) {
+            ArticleListWindow.Builder builder = ArticleListWindow.builder(requested);
+            return builder.build(mSource.load(builder, requested) == requested);
+        }
+        if (!window.hasMore() || window.size() >= requested) {
+            return window;
+        }
+        ArticleListWindow.Builder builder = window.buildUpon();
+        boolean hasMore = true;
+        while (hasMore && builder.size() < requested && !isLoadInBackgroundCanceled()) {
+            int limit = requested - builder.size();
+            hasMore = mSource.load(builder, limit) == limit;
+        }
+        return builder.build(hasMore);
+    }
+
+    @Override
+    protected boolean needsReload(ArticleListWindow window) {
+        // Also resume a page request that was cancelled when loading stopped
+        return window == null || (window.hasMore() && mRequestedCount > window.size());
+    }
+
+    @Override
+    public void onContentChanged() {
+        // Reload from the top rather than appending to stale rows.
+        setResult(null);
+        super.onContentChanged();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        mRequestedCount = ArticlePageSource.PAGE_SIZE;
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.xyzreader.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The leading part of the article list that has been loaded so far, in list order, with the
+ * columns needed to render list cards. Deliberately excludes the body.
+ * <p>
+ * Articles are stored by column rather than as an object each: ids, dates, aspect ratios and
+ * hashes in primitive arrays, and authors, of whom there are far fewer than articles, as
+ * indexes into a table of distinct names. Instances are immutable and can be read from any
+ * thread; loading another page produces a new window through {@link #buildUpon()}.
+ * <p>
+ * Windows built upon one another share their arrays: a window only reads the slots below its
+ * size, so the builder of the next page writes its articles past the end of the current one,
+ * and copies only when the arrays are full. Building upon a window that is not the last one
+ * built on its arrays copies them, since the slots past its end are taken.
+ */
+public class ArticleListWindow {
+    private static final int MIN_CAPACITY = 16;
+
+    /** Shared by a window and those built upon it, which all begin with the same articles. */
+    private final Object mLineage;
+    /** Shared by the windows built on the same arrays. */
+    private final Tail mTail;
+    private final int mSize;
+    private final long[] mIds;
+    private final String[] mTitles;
+    private final int[] mAuthorIndexes;
+    private final String[] mAuthors;
+    private final long[] mPublishedDates;
+    private final String[] mThumbUrls;
+    private final float[] mAspectRatios;
+    private final long[] mContentHashes;
+    /** Null unless this window holds search results. */
+    private final String[] mSnippets;
+    private final boolean mHasMore;
+
+    private ArticleListWindow(Builder builder, boolean hasMore) {
+        mLineage = builder.mLineage;
+        mTail = builder.mTail;
+        mSize = builder.mSize;
+        mIds = builder.mIds;
+        mTitles = builder.mTitles;
+        mAuthorIndexes = builder.mAuthorIndexes;
+        mAuthors = builder.mAuthors.toArray(new String[builder.mAuthors.size()]);
+        mPublishedDates = builder.mPublishedDates;
+        mThumbUrls = builder.mThumbUrls;
+        mAspectRatios = builder.mAspectRatios;
+        mContentHashes = builder.mContentHashes;
+        mSnippets = builder.mSnippets;
+        mHasMore = hasMore;
+    }
+
+    /** Returns a builder for a new window with room for {@code capacity} articles. */
+    static Builder builder(int capacity) {
+        return new Builder(new Object(), capacity);
+    }
+
+    /** Returns a builder starting with the articles of this window, to append more to. */
+    Builder buildUpon() {
+        return new Builder(this);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public long getId(int position) {
+        return mIds[checkPosition(position)];
+    }
+
+    public String getTitle(int position) {
+        return mTitles[checkPosition(position)];
+    }
+
+    public String getAuthor(int position) {
+        return mAuthors[mAuthorIndexes[checkPosition(position)]];
+    }
+
+    /** Publication time in epoch millis. */
+    public long getPublishedDate(int position) {
+        return mPublishedDates[checkPosition(position)];
+    }
+
+    public String getThumbUrl(int position) {
+        return mThumbUrls[checkPosition(position)];
+    }
+
+    public float getAspectRatio(int position) {
+        return mAspectRatios[checkPosition(position)];
+    }
+
+    /** Hash of the article's feed content; differs between versions of the same article. */
+    public long getContentHash(int position) {
+        return mContentHashes[checkPosition(position)];
+    }
+
+    /** HTML excerpt showing why a search result matched; null outside of search results. */
+    public String getSnippet(int position) {
+        checkPosition(position);
+        return mSnippets != null ? mSnippets[position] : null;
+    }
+
+    /**
+     * True if the article at {@code position} shows the same as the one at
+     * {@code otherPosition} of {@code other}, which has the same id.
+     */
+    public boolean hasSameContent(int position, ArticleListWindow other, int otherPosition) {
+        if (getContentHash(position) != other.getContentHash(otherPosition)) {
+            return false;
+        }
+        String snippet = getSnippet(position);
+        String otherSnippet = other.getSnippet(otherPosition);
+        return snippet == null ? otherSnippet == null : snippet.equals(otherSnippet);
+    }
+
+    /** True if more articles exist past the end of this window. */
+    public boolean hasMore() {
+        return mHasMore;
+    }
+
+    /** True if this window begins with exactly the articles of {@code other}. */
+    public boolean extendsWindow(ArticleListWindow other) {
+        return other != null && other.mLineage == mLineage && other.mSize <= mSize;
+    }
+
+    private int checkPosition(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + mSize);
+        }
+        return position;
+    }
+
+    /**
+     * Tracks which slots of a set of arrays are taken. The builder appending to the arrays
+     * holds them until it builds its window, which then becomes the one to build upon in place.
+     */
+    private static final class Tail {
+        /** Size of the window built last on the arrays, or -1 while a builder appends to them. */
+        private int mSize = -1;
+
+        /** Takes the arrays for appending if {@code size} is the size of the last window. */
+        synchronized boolean claim(int size) {
+            if (mSize != size) {
+                return false;
+            }
+            mSize = -1;
+            return true;
+        }
+
+        synchronized void release(int size) {
+            mSize = size;
+        }
+    }
+
+    /**
+     * Collects articles for a window. Used on a single thread and discarded after
+     * {@link #build}, which hands its arrays over to the window. A builder that is never built
+     * keeps its window's arrays, so windows later built upon that window copy them.
+     */
+    static class Builder {
+        private final Object mLineage;
+        private Tail mTail;
+        private int mSize;
+        private long[] mIds;
+        private String[] mTitles;
+        private int[] mAuthorIndexes;
+        private final ArrayList<String> mAuthors;
+        private final HashMap<String, Integer> mAuthorTable;
+        private long[] mPublishedDates;
+        private String[] mThumbUrls;
+        private float[] mAspectRatios;
+        private long[] mContentHashes;
+        private String[] mSnippets;
+        private boolean mBuilt;
+
+        private Builder(Object lineage, int capacity) {
+            capacity = Math.max(capacity, MIN_CAPACITY);
+            mLineage = lineage;
+            mTail = new Tail();
+            mIds = new long[capacity];
+            mTitles = new String[capacity];
+            mAuthorIndexes = new int[capacity];
+            mAuthors = new ArrayList<>();
+            mAuthorTable = new HashMap<>();
+            mPublishedDates = new long[capacity];
+            mThumbUrls = new String[capacity];
+            mAspectRatios = new float[capacity];
+            mContentHashes = new long[capacity];
+        }
+
+        private Builder(ArticleListWindow window) {
+            mLineage = window.mLineage;
+            mSize = window.mSize;
+            mAuthors = new ArrayList<>(Arrays.asList(window.mAuthors));
+            mAuthorTable = new HashMap<>();
+            for (int i = 0; i < window.mAuthors.length; i++) {
+                mAuthorTable.put(window.mAuthors[i], i);
+            }
+            if (window.mTail.claim(mSize)) {
+                mTail = window.mTail;
+                mIds = window.mIds;
+                mTitles = window.mTitles;
+                mAuthorIndexes = window.mAuthorIndexes;
+                mPublishedDates = window.mPublishedDates;
+                mThumbUrls = window.mThumbUrls;
+                mAspectRatios = window.mAspectRatios;
+                mContentHashes = window.mContentHashes;
+                mSnippets = window.mSnippets;
+            } else {
+                mTail = new Tail();
+                int capacity = Math.max(mSize * 2, MIN_CAPACITY);
+                mIds = Arrays.copyOf(window.mIds, capacity);
+                mTitles = Arrays.copyOf(window.mTitles, capacity);
+                mAuthorIndexes = Arrays.copyOf(window.mAuthorIndexes, capacity);
+                mPublishedDates = Arrays.copyOf(window.mPublishedDates, capacity);
+                mThumbUrls = Arrays.copyOf(window.mThumbUrls, capacity);
+                mAspectRatios = Arrays.copyOf(window.mAspectRatios, capacity);
+                mContentHashes = Arrays.copyOf(window.mContentHashes, capacity);
+                if (window.mSnippets != null) {
+                    mSnippets = Arrays.copyOf(window.mSnippets, capacity);
+                }
+            }
+        }
+
+        int size() {
+            return mSize;
+        }
+
+        long lastId() {
+            return mIds[mSize - 1];
+        }
+
+        long lastPublishedDate() {
+            return mPublishedDates[mSize - 1];
+        }
+
+        /** Appends an article; {@code snippet} is null outside of search results. */
+        void add(long id, String title, String author, long publishedDate, String thumbUrl,
+                float aspectRatio, long contentHash, String snippet) {
+            if (mBuilt) {
+                throw new IllegalStateException("Window already built");
+            }
+            if (mSize == mIds.length) {
+                grow();
+            }
+            mIds[mSize] = id;
+            mTitles[mSize] = title;
+            mAuthorIndexes[mSize] = authorIndex(author);
+            mPublishedDates[mSize] = publishedDate;
+            mThumbUrls[mSize] = thumbUrl;
+            mAspectRatios[mSize] = aspectRatio;
+            mContentHashes[mSize] = contentHash;
+            if (snippet != null) {
+                if (mSnippets == null) {
+                    mSnippets = new String[mIds.length];
+                }
+                mSnippets[mSize] = snippet;
+            }
+            mSize++;
+        }
+
+        ArticleListWindow build(boolean hasMore) {
+            if (!mBuilt) {
+                mBuilt = true;
+                mTail.release(mSize);
+            }
+            return new ArticleListWindow(this, hasMore);
+        }
+
+        private int authorIndex(String author) {
+            Integer index = mAuthorTable.get(author);
+            if (index == null) {
+                index = mAuthors.size();
+                mAuthorTable.put(author, index);
+                mAuthors.add(author);
+            }
+            return index;
+        }
+
+        /** Moves to arrays of twice the size, which no earlier window shares. */
+        private void grow() {
+            int capacity = mIds.length * 2;
+            mTail = new Tail();
+            mIds = Arrays.copyOf(mIds, capacity);
+            mTitles = Arrays.copyOf(mTitles, capacity);
+            mAuthorIndexes = Arrays.copyOf(mAuthorIndexes, capacity);
+            mPublishedDates = Arrays.copyOf(mPublishedDates, capacity);
+            mThumbUrls = Arrays.copyOf(mThumbUrls, capacity);
+            mAspectRatios = Arrays.copyOf(mAspectRatios, capacity);
+            mContentHashes = Arrays.copyOf(mContentHashes, capacity);
+            if (mSnippets != null) {
+                mSnippets = Arrays.copyOf(mSnippets, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.net.Uri;
+
+/**
+ * Loads the article list in fixed-size pages with keyset pagination on
+ * ({@code published_date}, {@code _id}), the {@link ItemsContract.Items#DEFAULT_SORT} order,
+ * so a page costs the same no matter how deep into the list it is. Only the columns needed for
+ * list cards are read.
+ */
+public class ArticlePageSource {
+    public static final int PAGE_SIZE = 40;
+
+    // The leading range term lets SQLite seek into the date index instead of scanning from
+    // the top; the OR only breaks ties within the boundary date.
+    private static final String SELECTION_AFTER = ItemsContract.Items.PUBLISHED_DATE + "<=? AND ("
+            + ItemsContract.Items.PUBLISHED_DATE + "<? OR " + ItemsContract.Items._ID + "<?)";
+
+    interface Query {
+        String[] PROJECTION = {
+                ItemsContract.Items._ID,
+                ItemsContract.Items.TITLE,
+                ItemsContract.Items.PUBLISHED_DATE,
+                ItemsContract.Items.AUTHOR,
+                ItemsContract.Items.THUMB_URL,
+                ItemsContract.Items.ASPECT_RATIO,
+                ItemsContract.Items.CONTENT_HASH,
+        };
+
+        int _ID = 0;
+        int TITLE = 1;
+        int PUBLISHED_DATE = 2;
+        int AUTHOR = 3;
+        int THUMB_URL = 4;
+        int ASPECT_RATIO = 5;
+        int CONTENT_HASH = 6;
+    }
+
+    interface SearchQuery {
+        String[] PROJECTION = {
+                ItemsContract.Items._ID,
+                ItemsContract.Items.TITLE,
+                ItemsContract.Items.PUBLISHED_DATE,
+                ItemsContract.Items.AUTHOR,
+                ItemsContract.Items.THUMB_URL,
+                ItemsContract.Items.ASPECT_RATIO,
+                ItemsContract.Items.CONTENT_HASH,
+                ItemsContract.Items.SNIPPET,
+        };
+
+        int SNIPPET = 7;
+    }
+
+    private final ContentResolver mResolver;
+
+    public ArticlePageSource(ContentResolver resolver) {
+        mResolver = resolver;
+    }
+
+    /**
+     * Appends up to {@code limit} articles to {@code window}, those following its last one in
+     * list order, or from the top of the list if it is empty. Runs the query on the calling
+     * thread.
+     *
+     * @return the number of articles appended
+     */
+    int load(ArticleListWindow.Builder window, int limit) {
+        Uri uri = ItemsContract.Items.buildDirUri().buildUpon()
+                .appendQueryParameter(ItemsContract.QUERY_PARAMETER_LIMIT, Integer.toString(limit))
+                .build();
+        String selection = null;
+        String[] selectionArgs = null;
+        if (window.size() > 0) {
+            selection = SELECTION_AFTER;
+            String date = Long.toString(window.lastPublishedDate());
+            selectionArgs = new String[] { date, date, Long.toString(window.lastId()) };
+        }
+
+        return readItems(mResolver.query(uri, Query.PROJECTION, selection, selectionArgs,
+                ItemsContract.Items.DEFAULT_SORT), window, false);
+    }
+
+    /**
+     * Loads up to {@code limit} articles matching the search text {@code query}, best match
+     * first, each with a snippet of the matching text. Runs the query on the calling thread.
+     */
+    public ArticleListWindow search(String query, int limit) {
+        Uri uri = ItemsContract.Items.buildSearchUri(query).buildUpon()
+                .appendQueryParameter(ItemsContract.QUERY_PARAMETER_LIMIT, Integer.toString(limit))
+                .build();
+        ArticleListWindow.Builder window = ArticleListWindow.builder(limit);
+        readItems(mResolver.query(uri, SearchQuery.PROJECTION, null, null, null), window, true);
+        return window.build(false);
+    }
+
+    private static int readItems(Cursor cursor, ArticleListWindow.Builder window,
+            boolean snippets) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            int count = 0;
+            while (cursor.moveToNext()) {
+                window.add(
+                        cursor.getLong(Query._ID),
+                        cursor.getString(Query.TITLE),
+                        cursor.getString(Query.AUTHOR),
+                        cursor.getLong(Query.PUBLISHED_DATE),
+                        cursor.getString(Query.THUMB_URL),
+                        cursor.getFloat(Query.ASPECT_RATIO),
+                        cursor.getLong(Query.CONTENT_HASH),
+                        snippets ? cursor.getString(SearchQuery.SNIPPET) : null);
+                count++;
+            }
+            return count;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.xyzreader.data;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.v4.util.LongSparseArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.xyzreader.data.ItemsProvider.Tables;
+
+/**
+ * Full-text search over the {@link Tables#ITEMS_FTS} index. Matching runs in two passes: the
+ * first reads only doc ids and {@code matchinfo()} for every match and ranks them with
+ * {@link SearchText#score}, the second reads item columns and decompresses bodies for
+ * snippets of the top results only.
+ */
+class ArticleSearch {
+    static final int DEFAULT_LIMIT = 50;
+    /** Keeps the id list of the second pass well below SQLite's bound parameter limit. */
+    private static final int MAX_LIMIT = 500;
+
+    static final String[] DEFAULT_PROJECTION = {
+            ItemsContract.Items._ID,
+            ItemsContract.Items.TITLE,
+            ItemsContract.Items.AUTHOR,
+            ItemsContract.Items.PUBLISHED_DATE,
+            ItemsContract.Items.THUMB_URL,
+            ItemsContract.Items.ASPECT_RATIO,
+            ItemsContract.Items.SNIPPET,
+    };
+
+    private ArticleSearch() {
+    }
+
+    /**
+     * Runs {@code query} against the index and returns at most {@code limit} results, best
+     * first, with the columns in {@code projection}. A query without any searchable terms
+     * yields an empty cursor.
+     */
+    static Cursor query(SQLiteDatabase db, String query, String[] projection, int limit) {
+        if (projection == null) {
+            projection = DEFAULT_PROJECTION;
+        }
+        MatrixCursor result = new MatrixCursor(projection);
+        String match = SearchText.toMatchExpression(query);
+        if (match == null || limit <= 0) {
+            return result;
+        }
+
+        List<ScoredId> ranked = rank(db, match);
+        if (ranked.isEmpty()) {
+            return result;
+        }
+        limit = Math.min(limit, MAX_LIMIT);
+        if (ranked.size() > limit) {
+            ranked = ranked.subList(0, limit);
+        }
+
+        // The requested columns, then the id used to restore the rank order. Bodies and
+        // snippets are not columns of the items table, the id stands in for them.
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (String column : projection) {
+            sql.append(isBodyColumn(column) ? ItemsContract.Items._ID : column).append(',');
+        }
+        sql.append(ItemsContract.Items._ID);
+        sql.append(" FROM ").append(Tables.ITEMS).append(" WHERE ")
+                .append(ItemsContract.Items._ID).append(" IN (");
+        for (int i = 0; i < ranked.size(); i++) {
+            sql.append(i > 0 ? ",?" : "?");
+        }
+        sql.append(')');
+        String[] args = new String[ranked.size()];
+        for (int i = 0; i < ranked.size(); i++) {
+            args[i] = Long.toString(ranked.get(i).id);
+        }
+
+        // Rows come back in id order, so put them into rank order
+        List<String> terms = SearchText.toTerms(query);
+        LongSparseArray<Object[]> rows = new LongSparseArray<>(ranked.size());
+        Cursor cursor = db.rawQuery(sql.toString(), args);
+        try {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(projection.length);
+                String body = null;
+                Object[] values = new Object[projection.length];
+                for (int i = 0; i < projection.length; i++) {
+                    if (!isBodyColumn(projection[i])) {
+                        values[i] = getValue(cursor, i);
+                        continue;
+                    }
+                    if (body == null) {
+                        body = ArticleTextStore.getBody(db, id);
+                    }
+                    if (body != null) {
+                        values[i] = ItemsContract.Items.SNIPPET.equals(projection[i])
+                                ? SearchText.snippet(body, terms) : body;
+                    }
+                }
+                rows.put(id, values);
+            }
+        } finally {
+            cursor.close();
+        }
+        for (ScoredId scored : ranked) {
+            Object[] values = rows.get(scored.id);
+            if (values != null) {
+                result.addRow(values);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isBodyColumn(String column) {
+        return ItemsContract.Items.SNIPPET.equals(column)
+                || ItemsContract.Items.BODY.equals(column);
+    }
+
+    private static List<ScoredId> rank(SQLiteDatabase db, String match) {
+        ArrayList<ScoredId> ranked = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT docid, matchinfo(" + Tables.ITEMS_FTS + ", 'pcnx')"
+                + " FROM " + Tables.ITEMS_FTS + " WHERE " + Tables.ITEMS_FTS + " MATCH ?",
+                new String[] { match });
+        try {
+            while (cursor.moveToNext()) {
+                ranked.add(new ScoredId(cursor.getLong(0), SearchText.score(cursor.getBlob(1))));
+            }
+        } finally {
+            cursor.close();
+        }
+        Collections.sort(ranked, ScoredId.BY_SCORE);
+        return ranked;
+    }
+
+    static Object getValue(Cursor cursor, int column) {
+        switch (cursor.getType(column)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+                return cursor.getLong(column);
+            case Cursor.FIELD_TYPE_FLOAT:
+                return cursor.getDouble(column);
+            case Cursor.FIELD_TYPE_BLOB:
+                return cursor.getBlob(column);
+            case Cursor.FIELD_TYPE_NULL:
+                return null;
+            default:
+                return cursor.getString(column);
+        }
+    }
+
+    private static final class ScoredId {
+        static final Comparator<ScoredId> BY_SCORE = new Comparator<ScoredId>() {
+            @Override
+            public int compare(ScoredId a, ScoredId b) {
+                return Double.compare(b.score, a.score);
+            }
+        };
+
+        final long id;
+        final double score;
+
+        ScoredId(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.xyzreader.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.io.IOException;
+
+import static com.example.xyzreader.data.ItemsProvider.Tables;
+
+/**
+ * Storage of article bodies and of the search index over them. Bodies live compressed in
+ * {@link Tables#ITEM_BODIES}, apart from the item rows, so that list queries never read them.
+ *
+ * <p>SQLite cannot index text it only sees compressed, so {@link Tables#ITEMS_FTS} is
+ * maintained from here. It is an external content table over
+ * {@link Tables#ITEMS_FTS_CONTENT}, which is empty except while an entry is removed: FTS4
+ * reads the text of a row it deletes from the content table, so the old text is put there
+ * for the duration of the delete. Callers hold a transaction around every change.
+ */
+final class ArticleTextStore {
+    private static final String TAG = "ArticleTextStore";
+
+    /** Column of {@link Tables#ITEM_BODIES} referencing the item's {@code _id}. */
+    static final String ITEM_ID = "item_id";
+
+    /** Constant, so every read finds its statement in the connection's statement cache. */
+    private static final String GET_BODY_SQL = "SELECT " + ItemsContract.Items.BODY + " FROM "
+            + Tables.ITEM_BODIES + " WHERE " + ITEM_ID + "=?";
+
+    private ArticleTextStore() {
+    }
+
+    /** Stores the body of an item, replacing any it had. */
+    static void putBody(SQLiteDatabase db, long id, String body) {
+        SQLiteStatement statement = compilePutBody(db);
+        try {
+            putBody(statement, id, body);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /** Compiles a statement for storing many bodies. */
+    static SQLiteStatement compilePutBody(SQLiteDatabase db) {
+        return db.compileStatement("INSERT OR REPLACE INTO " + Tables.ITEM_BODIES + " ("
+                + ITEM_ID + ", " + ItemsContract.Items.BODY + ") VALUES (?, ?)");
+    }
+
+    /** Stores the body of an item with a statement from {@link #compilePutBody}. */
+    static void putBody(SQLiteStatement statement, long id, String body) {
+        statement.bindLong(1, id);
+        statement.bindBlob(2, BodyCodec.encode(body));
+        statement.executeInsert();
+    }
+
+    /** Returns the body of an item, or null if it has none or it cannot be decoded. */
+    static String getBody(SQLiteDatabase db, long id) {
+        Cursor cursor = db.rawQuery(GET_BODY_SQL, new String[] { Long.toString(id) });
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return BodyCodec.decode(cursor.getBlob(0));
+        } catch (IOException e) {
+            Log.e(TAG, "Unreadable body of item " + id, e);
+            return null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /** Adds an item to the search index. */
+    static void index(SQLiteDatabase db, long id, String title, String author, String body) {
+        Indexer indexer = new Indexer(db);
+        try {
+            indexer.index(id, title, author, body);
+        } finally {
+            indexer.close();
+        }
+    }
+
+    /** Adds an item to the search index with its stored title, author and body. */
+    static void index(SQLiteDatabase db, long id) {
+        String[] text = readText(db, id);
+        if (text != null) {
+            index(db, id, text[0], text[1], text[2]);
+        }
+    }
+
+    /** Removes an item from the search index. Must run before its stored text changes. */
+    static void unindex(SQLiteDatabase db, long id) {
+        Indexer indexer = new Indexer(db);
+        try {
+            indexer.unindex(id);
+        } finally {
+            indexer.close();
+        }
+    }
+
+    /** Returns the indexed text of an item: title, author and body, or null if it is gone. */
+    private static String[] readText(SQLiteDatabase db, long id) {
+        Cursor cursor = db.query(Tables.ITEMS, new String[] {
+                        ItemsContract.Items.TITLE, ItemsContract.Items.AUTHOR },
+                ItemsContract.Items._ID + "=?", new String[] { Long.toString(id) },
+                null, null, null);
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            String body = getBody(db, id);
+            return new String[] { cursor.getString(0), cursor.getString(1),
+                    body != null ? body : "" };
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Adds items to and removes them from the search index with statements compiled once, for
+     * writing many items. Removing an item decodes its stored body, which FTS4 needs to find
+     * the terms to drop it from; its title and author are copied by the statement.
+     */
+    static final class Indexer {
+        private final SQLiteDatabase mDb;
+        private final SQLiteStatement mInsert;
+        private final SQLiteStatement mPutContent;
+        private final SQLiteStatement mDelete;
+        private final SQLiteStatement mClearContent;
+
+        Indexer(SQLiteDatabase db) {
+            mDb = db;
+            mInsert = db.compileStatement("INSERT INTO " + Tables.ITEMS_FTS + " (docid, "
+                    + ItemsContract.Items.TITLE + ", " + ItemsContract.Items.AUTHOR + ", "
+                    + ItemsContract.Items.BODY + ") VALUES (?, ?, ?, ?)");
+            mPutContent = db.compileStatement("INSERT INTO " + Tables.ITEMS_FTS_CONTENT
+                    + " (docid, " + ItemsContract.Items.TITLE + ", " + ItemsContract.Items.AUTHOR
+                    + ", " + ItemsContract.Items.BODY + ") SELECT " + ItemsContract.Items._ID
+                    + ", " + ItemsContract.Items.TITLE + ", " + ItemsContract.Items.AUTHOR
+                    + ", ? FROM " + Tables.ITEMS + " WHERE " + ItemsContract.Items._ID + "=?");
+            mDelete = db.compileStatement("DELETE FROM " + Tables.ITEMS_FTS + " WHERE docid=?");
+            mClearContent = db.compileStatement("DELETE FROM " + Tables.ITEMS_FTS_CONTENT);
+        }
+
+        /** Adds an item to the search index. */
+        void index(long id, String title, String author, String body) {
+            mInsert.bindLong(1, id);
+            mInsert.bindString(2, title);
+            mInsert.bindString(3, author);
+            mInsert.bindString(4, body);
+            mInsert.executeInsert();
+        }
+
+        /** Removes an item from the search index. Must run before its stored text changes. */
+        void unindex(long id) {
+            final String body = getBody(mDb, id);
+            mPutContent.bindString(1, body != null ? body : "");
+            mPutContent.bindLong(2, id);
+            if (mPutContent.executeInsert() < 0) {
+                // No such item
+                return;
+            }
+            mDelete.bindLong(1, id);
+            mDelete.executeUpdateDelete();
+            mClearContent.executeUpdateDelete();
+        }
+
+        void close() {
+            mInsert.close();
+            mPutContent.close();
+            mDelete.close();
+            mClearContent.close();
+        }
+    }
+}
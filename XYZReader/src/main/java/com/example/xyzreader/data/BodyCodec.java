@@ -0,0 +1,98 @@
+package com.example.xyzreader.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses article bodies for storage. Bodies are deflated with a preset dictionary of
+ * words and markup common to the feed, which lets even short bodies compress well since the
+ * compressor does not have to see a phrase once before it can refer back to it.
+ *
+ * <p>Encoded form: a format byte, the length of the UTF-8 text as a big-endian int, then the
+ * raw deflate stream. The dictionary of a format can never change once bodies were stored
+ * with it; a new dictionary needs a new format byte.
+ */
+final class BodyCodec {
+    private static final byte FORMAT_DEFLATE_DICTIONARY_1 = 1;
+    private static final int HEADER_SIZE = 5;
+    /** Deflate cannot expand a byte to more than this, which bounds a sane length header. */
+    private static final int MAX_EXPANSION = 1032;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Most frequent material goes last, where it is cheapest to refer to. */
+    private static final byte[] DICTIONARY_1 = (
+            "http://https://www.com/ .org/ <a href=\"\"></a> <i></i> <em></em> <p></p> "
+            + "<blockquote></blockquote> <strong></strong> &quot; &amp; &#39; "
+            + "Chapter CHAPTER Mr. Mrs. Miss Sir Lady Lord I'm I'll I've don't didn't can't "
+            + "wouldn't couldn't won't it's that's there's he's she's said the man the woman "
+            + "because through before again never always little great about after could would "
+            + "should those these other there their which where while when what with were "
+            + "been have from they this that them then than into some only upon your will "
+            + "shall must said very more most like know well even such much made upon "
+            + "and the of the to the in the on the at the for the by the with the from the "
+            + "it was he had she had they were I have he said she said of a in a to be "
+            + ".\r\n\r\n, and  of the  and the . The  in the ,\" said ? \" \" . \"  the "
+            + "<br />\r\n<br />\r\n<br /><br />").getBytes(UTF_8);
+
+    private BodyCodec() {
+    }
+
+    static byte[] encode(String body) {
+        byte[] text = body.getBytes(UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY_1);
+            deflater.setInput(text);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(text.length / 3 + 64);
+            out.write(FORMAT_DEFLATE_DICTIONARY_1);
+            out.write(text.length >>> 24);
+            out.write(text.length >>> 16);
+            out.write(text.length >>> 8);
+            out.write(text.length);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String decode(byte[] encoded) throws IOException {
+        if (encoded.length < HEADER_SIZE || encoded[0] != FORMAT_DEFLATE_DICTIONARY_1) {
+            throw new IOException("Unknown body format");
+        }
+        int length = (encoded[1] & 0xff) << 24 | (encoded[2] & 0xff) << 16
+                | (encoded[3] & 0xff) << 8 | (encoded[4] & 0xff);
+        if (length < 0 || length > (long) (encoded.length - HEADER_SIZE) * MAX_EXPANSION) {
+            throw new IOException("Corrupt body length " + length);
+        }
+        byte[] text = new byte[length];
+        // A raw stream does not ask for its dictionary, it has to be set up front
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY_1);
+            inflater.setInput(encoded, HEADER_SIZE, encoded.length - HEADER_SIZE);
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(text, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Truncated body");
+                }
+                read += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt body", e);
+        } finally {
+            inflater.end();
+        }
+        return new String(text, UTF_8);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.xyzreader.data;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.v4.content.AsyncTaskLoader;
+
+/**
+ * An {@link AsyncTaskLoader} that keeps its last result and reloads when the content at a URI
+ * changes, in the manner of {@link android.support.v4.content.CursorLoader} but for results
+ * that are not cursors.
+ */
+public abstract class ContentObservingLoader<D> extends AsyncTaskLoader<D> {
+    private final Uri mUri;
+    private final boolean mNotifyForDescendants;
+    private final ForceLoadContentObserver mObserver = new ForceLoadContentObserver();
+    private boolean mObserverRegistered;
+    private volatile D mResult;
+
+    protected ContentObservingLoader(Context context, Uri uri, boolean notifyForDescendants) {
+        super(context);
+        mUri = uri;
+        mNotifyForDescendants = notifyForDescendants;
+    }
+
+    /** The last delivered result, or null if there is none. */
+    protected D getResult() {
+        return mResult;
+    }
+
+    /**
+     * Seeds the result with a value obtained without loading, e.g. from a cache. It is
+     * delivered when loading starts.
+     */
+    protected void setResult(D result) {
+        mResult = result;
+    }
+
+    /** Whether the result must be reloaded even though the content has not changed. */
+    protected boolean needsReload(D result) {
+        return result == null;
+    }
+
+    @Override
+    public void deliverResult(D result) {
+        if (isReset()) {
+            return;
+        }
+        mResult = result;
+        if (isStarted()) {
+            super.deliverResult(result);
+        }
+    }
+
+    @Override
+    protected void onStartLoading() {
+        if (!mObserverRegistered) {
+            getContext().getContentResolver().registerContentObserver(mUri,
+                    mNotifyForDescendants, mObserver);
+            mObserverRegistered = true;
+        }
+        D result = mResult;
+        if (result != null) {
+            deliverResult(result);
+        }
+        if (takeContentChanged() || needsReload(result)) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        if (mObserverRegistered) {
+            getContext().getContentResolver().unregisterContentObserver(mObserver);
+            mObserverRegistered = false;
+        }
+        mResult = null;
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.RemoteException;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+import android.util.MalformedJsonException;
+
+import com.example.xyzreader.remote.Config;
+import com.example.xyzreader.remote.FeedResponse;
+import com.example.xyzreader.remote.RemoteEndpointUtil;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Brings the stored items up to date with the remote feed. Runs on the calling thread, which
+ * must not be the main thread; {@link SyncWorker} runs it in the background.
+ */
+public class FeedSync {
+    private static final String TAG = "FeedSync";
+
+    /** Number of parsed articles written per provider transaction. */
+    private static final int BATCH_SIZE = 100;
+
+    private final Context mContext;
+    private final HttpUrl mFeedUrl;
+    // Feed dates carry no zone and have always been read as local time.
+    private final SimpleDateFormat mDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    public FeedSync(Context context) {
+        this(context, HttpUrl.get(Config.BASE_URL));
+    }
+
+    FeedSync(Context context, HttpUrl feedUrl) {
+        mContext = context.getApplicationContext();
+        mFeedUrl = feedUrl;
+    }
+
+    /**
+     * Fetches the feed, unless the server reports it unchanged, and writes the differences.
+     * The metrics of the sync are recorded in {@link SyncMetricsLog}, whether it succeeds or not.
+     *
+     * @return the metrics of the sync
+     */
+    public SyncMetrics run() throws IOException, RemoteException, OperationApplicationException {
+        SyncMetrics.Recorder metrics = new SyncMetrics.Recorder();
+        FeedResponse feed = null;
+        JsonReader reader = null;
+        try {
+            // Only ask for a 304 if there is something stored that it would refer to.
+            feed = RemoteEndpointUtil.fetchFeed(mContext, mFeedUrl, hasStoredItems());
+            metrics.onResponse(feed.isNotModified(), feed.isFromCache(),
+                    feed.getResponseMillis());
+            if (feed.isNotModified()) {
+                Log.i(TAG, "Feed not modified, nothing to sync.");
+            } else {
+                reader = feed.openJsonReader();
+                sync(reader, feed, loadStoredItems(), metrics);
+                feed.commit();
+            }
+            SyncMetrics result = metrics.finish(true);
+            Log.i(TAG, "Sync complete: " + result);
+            SyncMetricsLog.get(mContext).add(result);
+            return result;
+        } catch (IOException | RemoteException | OperationApplicationException
+                | RuntimeException e) {
+            SyncMetricsLog.get(mContext).add(metrics.finish(false));
+            throw e;
+        } finally {
+            closeQuietly(reader);
+            if (feed != null) {
+                feed.close();
+            }
+        }
+    }
+
+    /**
+     * Streams the feed array into the provider, writing only the articles that are new or whose
+     * content hash changed, and deleting the articles in {@code stored} that are no longer in
+     * the feed. Entries of {@code stored} are marked as the feed matches them, and new
+     * articles are added as {@link StoredItem#ADDED}, so the one map also catches duplicates.
+     * Articles are written with {@link ItemsProvider#bulkInsert}, which updates existing rows
+     * in place so their {@code _id} stays stable across syncs. Writes are flushed every
+     * {@link #BATCH_SIZE} articles, so memory is bounded by the batch size plus the
+     * id/hash index of the rows. Row counts and timings are recorded in {@code metrics}.
+     */
+    private void sync(JsonReader reader, FeedResponse feed, Map<String, StoredItem> stored,
+            SyncMetrics.Recorder metrics) throws IOException, RemoteException,
+            OperationApplicationException {
+        ArrayList<ContentValues> articles = new ArrayList<>(BATCH_SIZE);
+
+        metrics.onReadStarted();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            ContentValues values = readItem(reader);
+            String serverId = values.getAsString(ItemsContract.Items.SERVER_ID);
+            StoredItem item = stored.get(serverId);
+            if (item != null && item.matched) {
+                Log.w(TAG, "Skipping duplicate item " + serverId);
+                continue;
+            }
+
+            // Hash the feed's own representation, then store the date pre-parsed.
+            long hash = contentHash(values);
+            values.put(ItemsContract.Items.CONTENT_HASH, hash);
+            values.put(ItemsContract.Items.PUBLISHED_DATE,
+                    parsePublishedDate(values.getAsString(ItemsContract.Items.PUBLISHED_DATE)));
+
+            if (item == null) {
+                stored.put(serverId, StoredItem.ADDED);
+                articles.add(values);
+                metrics.inserted++;
+            } else {
+                item.matched = true;
+                if (item.hash != hash) {
+                    articles.add(values);
+                    metrics.updated++;
+                }
+            }
+            if (articles.size() >= BATCH_SIZE) {
+                writeArticles(articles, metrics);
+            }
+        }
+        reader.endArray();
+        metrics.onReadFinished(feed.getBytesRead());
+        if (!articles.isEmpty()) {
+            writeArticles(articles, metrics);
+        }
+
+        // Whatever was not matched by the feed has been removed upstream.
+        ArrayList<ContentProviderOperation> cpo = new ArrayList<>(BATCH_SIZE);
+        for (StoredItem item : stored.values()) {
+            if (item.matched) {
+                continue;
+            }
+            cpo.add(ContentProviderOperation.newDelete(
+                    ItemsContract.Items.buildItemUri(item.id)).build());
+            metrics.deleted++;
+            if (cpo.size() >= BATCH_SIZE) {
+                deleteArticles(cpo, metrics);
+            }
+        }
+        if (!cpo.isEmpty()) {
+            deleteArticles(cpo, metrics);
+        }
+    }
+
+    private void writeArticles(ArrayList<ContentValues> articles, SyncMetrics.Recorder metrics) {
+        metrics.onWriteStarted();
+        mContext.getContentResolver().bulkInsert(ItemsContract.Items.buildDirUri(),
+                articles.toArray(new ContentValues[articles.size()]));
+        metrics.onWriteFinished();
+        articles.clear();
+    }
+
+    private void deleteArticles(ArrayList<ContentProviderOperation> cpo,
+            SyncMetrics.Recorder metrics) throws RemoteException, OperationApplicationException {
+        metrics.onWriteStarted();
+        mContext.getContentResolver().applyBatch(ItemsContract.CONTENT_AUTHORITY, cpo);
+        metrics.onWriteFinished();
+        cpo.clear();
+    }
+
+    private long parsePublishedDate(String date) {
+        try {
+            return mDateFormat.parse(date).getTime();
+        } catch (ParseException ex) {
+            Log.e(TAG, ex.getMessage());
+            Log.i(TAG, "passing today's date");
+            return System.currentTimeMillis();
+        }
+    }
+
+    /** Returns whether any item is stored, reading at most one row. */
+    private boolean hasStoredItems() {
+        Uri uri = ItemsContract.Items.buildDirUri().buildUpon()
+                .appendQueryParameter(ItemsContract.QUERY_PARAMETER_LIMIT, "1").build();
+        Cursor cursor = mContext.getContentResolver().query(uri,
+                new String[] { ItemsContract.Items._ID }, null, null, null);
+        if (cursor == null) {
+            return false;
+        }
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private Map<String, StoredItem> loadStoredItems() {
+        HashMap<String, StoredItem> stored = new HashMap<>();
+        Cursor cursor = mContext.getContentResolver().query(ItemsContract.Items.buildDirUri(),
+                StoredItem.PROJECTION, null, null, null);
+        if (cursor == null) {
+            return stored;
+        }
+        try {
+            while (cursor.moveToNext()) {
+                stored.put(cursor.getString(StoredItem.SERVER_ID), new StoredItem(
+                        cursor.getLong(StoredItem._ID), cursor.getLong(StoredItem.CONTENT_HASH),
+                        false));
+            }
+        } finally {
+            cursor.close();
+        }
+        return stored;
+    }
+
+    /**
+     * 64-bit FNV-1a hash over every feed-provided column, used to detect changed articles
+     * without comparing their bodies.
+     */
+    static long contentHash(ContentValues values) {
+        long hash = 0xcbf29ce484222325L;
+        for (String column : HASHED_COLUMNS) {
+            String value = values.getAsString(column);
+            if (value != null) {
+                for (int i = 0; i < value.length(); i++) {
+                    hash ^= value.charAt(i);
+                    hash *= 0x100000001b3L;
+                }
+            }
+            // Separator, so that moving characters between columns changes the hash
+            hash ^= 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final String[] HASHED_COLUMNS = {
+            ItemsContract.Items.SERVER_ID,
+            ItemsContract.Items.AUTHOR,
+            ItemsContract.Items.TITLE,
+            ItemsContract.Items.BODY,
+            ItemsContract.Items.THUMB_URL,
+            ItemsContract.Items.PHOTO_URL,
+            ItemsContract.Items.ASPECT_RATIO,
+            ItemsContract.Items.PUBLISHED_DATE,
+    };
+
+    private static final class StoredItem {
+        static final String[] PROJECTION = {
+                ItemsContract.Items._ID,
+                ItemsContract.Items.SERVER_ID,
+                ItemsContract.Items.CONTENT_HASH,
+        };
+
+        static final int _ID = 0;
+        static final int SERVER_ID = 1;
+        static final int CONTENT_HASH = 2;
+
+        /** Marks an article new in this sync; it is not stored yet, so it has no id or hash. */
+        static final StoredItem ADDED = new StoredItem(-1, 0, true);
+
+        final long id;
+        final long hash;
+        /** Whether the feed being read has this article. */
+        boolean matched;
+
+        StoredItem(long id, long hash, boolean matched) {
+            this.id = id;
+            this.hash = hash;
+            this.matched = matched;
+        }
+    }
+
+    private static ContentValues readItem(JsonReader reader) throws IOException {
+        ContentValues values = new ContentValues();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    values.put(ItemsContract.Items.SERVER_ID, reader.nextString());
+                    break;
+                case "author":
+                    values.put(ItemsContract.Items.AUTHOR, reader.nextString());
+                    break;
+                case "title":
+                    values.put(ItemsContract.Items.TITLE, reader.nextString());
+                    break;
+                case "body":
+                    values.put(ItemsContract.Items.BODY, reader.nextString());
+                    break;
+                case "thumb":
+                    values.put(ItemsContract.Items.THUMB_URL, reader.nextString());
+                    break;
+                case "photo":
+                    values.put(ItemsContract.Items.PHOTO_URL, reader.nextString());
+                    break;
+                case "aspect_ratio":
+                    values.put(ItemsContract.Items.ASPECT_RATIO, reader.nextString());
+                    break;
+                case "published_date":
+                    values.put(ItemsContract.Items.PUBLISHED_DATE, reader.nextString());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        requireValue(values, ItemsContract.Items.SERVER_ID);
+        requireValue(values, ItemsContract.Items.AUTHOR);
+        requireValue(values, ItemsContract.Items.TITLE);
+        requireValue(values, ItemsContract.Items.BODY);
+        requireValue(values, ItemsContract.Items.THUMB_URL);
+        requireValue(values, ItemsContract.Items.PHOTO_URL);
+        requireValue(values, ItemsContract.Items.PUBLISHED_DATE);
+        return values;
+    }
+
+    private static void requireValue(ContentValues values, String column)
+            throws MalformedJsonException {
+        if (!values.containsKey(column)) {
+            throw new MalformedJsonException("Item is missing a value for " + column);
+        }
+    }
+
+    private static void closeQuietly(JsonReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+
+import static com.example.xyzreader.data.ItemsProvider.Tables;
+
+/**
+ * Writes items by server id, inserting the new ones and updating the others in place, with
+ * statements compiled once and bound by column index for every row. Used for bulk inserts,
+ * where building SQL and copying values for each row would cost more than the writes.
+ * Callers hold a transaction around every write and {@link #close} it when done.
+ */
+final class ItemUpserter {
+    /** Columns bound, in this order, from the values of each item. */
+    private static final String[] COLUMNS = {
+            ItemsContract.Items.SERVER_ID,
+            ItemsContract.Items.TITLE,
+            ItemsContract.Items.AUTHOR,
+            ItemsContract.Items.THUMB_URL,
+            ItemsContract.Items.PHOTO_URL,
+            ItemsContract.Items.ASPECT_RATIO,
+            ItemsContract.Items.PUBLISHED_DATE,
+            ItemsContract.Items.CONTENT_HASH,
+    };
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+
+    /** Values of the columns with a default, used when an item has none. */
+    private static final String[] DEFAULTS = { null, null, null, null, null, "1.5", "0", "0" };
+
+    private final SQLiteStatement mFindId;
+    private final SQLiteStatement mInsert;
+    private final SQLiteStatement mUpdate;
+    private final SQLiteStatement mPutBody;
+    private final ArticleTextStore.Indexer mIndexer;
+
+    ItemUpserter(SQLiteDatabase db) {
+        final StringBuilder columns = new StringBuilder();
+        final StringBuilder values = new StringBuilder();
+        final StringBuilder assignments = new StringBuilder();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                columns.append(", ");
+                values.append(", ");
+                assignments.append(", ");
+            }
+            final String value = DEFAULTS[i] != null ? "IFNULL(?, " + DEFAULTS[i] + ")" : "?";
+            columns.append(COLUMNS[i]);
+            values.append(value);
+            assignments.append(COLUMNS[i]).append('=').append(value);
+        }
+        mFindId = db.compileStatement("SELECT " + ItemsContract.Items._ID + " FROM "
+                + Tables.ITEMS + " WHERE " + ItemsContract.Items.SERVER_ID + "=?");
+        mInsert = db.compileStatement("INSERT INTO " + Tables.ITEMS + " (" + columns
+                + ") VALUES (" + values + ")");
+        mUpdate = db.compileStatement("UPDATE " + Tables.ITEMS + " SET " + assignments
+                + " WHERE " + ItemsContract.Items._ID + "=?");
+        mPutBody = ArticleTextStore.compilePutBody(db);
+        mIndexer = new ArticleTextStore.Indexer(db);
+    }
+
+    /**
+     * Returns the {@code _id} of the item with the server id in {@code values}, or -1 if there
+     * is none yet.
+     */
+    long findId(ContentValues values) {
+        final String serverId = values.getAsString(ItemsContract.Items.SERVER_ID);
+        if (serverId == null) {
+            return -1;
+        }
+        mFindId.bindString(1, serverId);
+        try {
+            return mFindId.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1;
+        }
+    }
+
+    /** Inserts an item with its body and index entry, returning its {@code _id}. */
+    long insert(ContentValues values) {
+        final String body = requireBody(values);
+        bindColumns(mInsert, values);
+        final long id = mInsert.executeInsert();
+        if (id < 0) {
+            throw new SQLiteConstraintException("Cannot insert item "
+                    + values.getAsString(ItemsContract.Items.SERVER_ID));
+        }
+        write(id, values, body);
+        return id;
+    }
+
+    /** Replaces the item with {@code _id} {@code id}, its body and its index entry. */
+    void update(long id, ContentValues values) {
+        final String body = requireBody(values);
+        mIndexer.unindex(id);
+        bindColumns(mUpdate, values);
+        mUpdate.bindLong(COLUMNS.length + 1, id);
+        mUpdate.executeUpdateDelete();
+        write(id, values, body);
+    }
+
+    void close() {
+        mFindId.close();
+        mInsert.close();
+        mUpdate.close();
+        mPutBody.close();
+        mIndexer.close();
+    }
+
+    private void write(long id, ContentValues values, String body) {
+        ArticleTextStore.putBody(mPutBody, id, body);
+        mIndexer.index(id, values.getAsString(COLUMNS[TITLE]),
+                values.getAsString(COLUMNS[AUTHOR]), body);
+    }
+
+    private static String requireBody(ContentValues values) {
+        final String body = values.getAsString(ItemsContract.Items.BODY);
+        if (body == null) {
+            throw new SQLiteConstraintException("NOT NULL constraint failed: "
+                    + ItemsContract.Items.BODY);
+        }
+        return body;
+    }
+
+    private static void bindColumns(SQLiteStatement statement, ContentValues values) {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            final Object value = values.get(COLUMNS[i]);
+            final int index = i + 1;
+            if (value == null) {
+                statement.bindNull(index);
+            } else if (value instanceof Long || value instanceof Integer) {
+                statement.bindLong(index, ((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                statement.bindDouble(index, ((Number) value).doubleValue());
+            } else {
+                statement.bindString(index, value.toString());
+            }
+        }
+    }
+}
@@ -6,6 +6,11 @@ public class ItemsContract {
 	public static final String CONTENT_AUTHORITY = "com.example.xyzreader";
 	public static final Uri BASE_URI = Uri.parse("content://com.example.xyzreader");
 
+	/** Query parameter limiting the number of rows returned by a directory query. */
+	public static final String QUERY_PARAMETER_LIMIT = "limit";
+	/** Query parameter carrying the user's search text for a search query. */
+	public static final String QUERY_PARAMETER_QUERY = "q";
+
 	interface ItemsColumns {
 		/** Type: INTEGER PRIMARY KEY AUTOINCREMENT */
 		String _ID = "_id";
@@ -15,7 +20,10 @@ public class ItemsContract {
 		String TITLE = "title";
 		/** Type: TEXT NOT NULL */
 		String AUTHOR = "author";
-		/** Type: TEXT NOT NULL */
+		/**
+		 * Type: TEXT NOT NULL. Stored compressed apart from the other columns, so it is only
+		 * returned when a projection names it, and reading it costs a decompression per row.
+		 */
 		String BODY = "body";
         /** Type: TEXT NOT NULL */
         String THUMB_URL = "thumb_url";
@@ -25,13 +33,20 @@ public class ItemsContract {
 		String ASPECT_RATIO = "aspect_ratio";
 		/** Type: INTEGER NOT NULL DEFAULT 0 */
 		String PUBLISHED_DATE = "published_date";
+		/** Type: INTEGER NOT NULL DEFAULT 0 */
+		String CONTENT_HASH = "content_hash";
+	}
+
+	interface SearchColumns {
+		/** Type: TEXT, an excerpt of the matching text with matched terms in {@code <b>} tags */
+		String SNIPPET = "snippet";
 	}
 
-	public static class Items implements ItemsColumns {
+	public static class Items implements ItemsColumns, SearchColumns {
 		public static final String CONTENT_TYPE = "vnd.android.cursor.dir/vnd.com.example.xyzreader.items";
 		public static final String CONTENT_ITEM_TYPE = "vnd.android.cursor.item/vnd.com.example.xyzreader.items";
 
-        public static final String DEFAULT_SORT = PUBLISHED_DATE + " DESC";
+        public static final String DEFAULT_SORT = PUBLISHED_DATE + " DESC, " + _ID + " DESC";
 
 		/** Matches: /items/ */
 		public static Uri buildDirUri() {
@@ -43,11 +58,73 @@ public class ItemsContract {
 			return BASE_URI.buildUpon().appendPath("items").appendPath(Long.toString(_id)).build();
 		}
 
+		/**
+		 * Notified once for every committed change to items, after the item URIs of the
+		 * updated and deleted items. Observe it to reload lists once per change rather than
+		 * once per changed item. Not queryable.
+		 */
+		public static Uri buildChangesUri() {
+			return BASE_URI.buildUpon().appendPath("items").appendPath("changes").build();
+		}
+
+		/**
+		 * Matches: /items/search?q=[query] Results are ranked by relevance and may also
+		 * request the {@link #SNIPPET} column.
+		 */
+		public static Uri buildSearchUri(String query) {
+			return BASE_URI.buildUpon().appendPath("items").appendPath("search")
+					.appendQueryParameter(QUERY_PARAMETER_QUERY, query).build();
+		}
+
         /** Read item ID item detail URI. */
         public static long getItemId(Uri itemUri) {
             return Long.parseLong(itemUri.getPathSegments().get(1));
         }
 	}
 
+	interface SyncHistoryColumns {
+		/** Type: INTEGER, epoch millis the sync started */
+		String STARTED = "started";
+		/** Type: INTEGER */
+		String TOTAL_MILLIS = "total_millis";
+		/** Type: INTEGER, 1 if the sync succeeded */
+		String SUCCEEDED = "succeeded";
+		/** Type: INTEGER, 1 if the server reported the feed unchanged */
+		String NOT_MODIFIED = "not_modified";
+		/** Type: INTEGER, 1 if the feed came from the HTTP cache */
+		String FROM_CACHE = "from_cache";
+		/** Type: INTEGER, millis until the response headers arrived */
+		String RESPONSE_MILLIS = "response_millis";
+		/** Type: INTEGER, bytes of feed body read */
+		String BYTES = "bytes";
+		/** Type: INTEGER, millis reading the feed, excluding writes */
+		String PARSE_MILLIS = "parse_millis";
+		/** Type: INTEGER, millis in provider transactions */
+		String WRITE_MILLIS = "write_millis";
+		/** Type: INTEGER */
+		String INSERTED = "inserted";
+		/** Type: INTEGER */
+		String UPDATED = "updated";
+		/** Type: INTEGER */
+		String DELETED = "deleted";
+		/** Type: INTEGER, change notifications sent for the sync's writes */
+		String NOTIFICATIONS = "notifications";
+	}
+
+	/** The metrics of recent feed syncs. Read only. */
+	public static class SyncHistory implements SyncHistoryColumns {
+		public static final String CONTENT_TYPE = "vnd.android.cursor.dir/vnd.com.example.xyzreader.sync_history";
+
+		/** All columns, in the order of a query without projection. */
+		public static final String[] COLUMNS = { STARTED, TOTAL_MILLIS, SUCCEEDED, NOT_MODIFIED,
+				FROM_CACHE, RESPONSE_MILLIS, BYTES, PARSE_MILLIS, WRITE_MILLIS, INSERTED, UPDATED,
+				DELETED, NOTIFICATIONS };
+
+		/** Matches: /sync_history/ Most recent sync first. */
+		public static Uri buildDirUri() {
+			return BASE_URI.buildUpon().appendPath("sync_history").build();
+		}
+	}
+
 	private ItemsContract() { }
 }
\ No newline at end of file
@@ -8,10 +8,34 @@ import static com.example.xyzreader.data.ItemsProvider.Tables;
 
 public class ItemsDatabase extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "xyzreader.db";
-    private static final int DATABASE_VERSION = 2;
+    private static final int DATABASE_VERSION = 3;
+    /** Page cache of the writing connection, in KiB. */
+    private static final int PAGE_CACHE_KIB = 4096;
 
     public ItemsDatabase(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Lets the loaders read from their own connections while a sync holds the write
+        // transaction, instead of waiting for it to commit
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // With a write-ahead log, NORMAL only syncs at checkpoints; a crash can lose the last
+        // transactions but never corrupts the database, and the items are refetched anyway
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        // The writing connection walks the server id index and the search index for every
+        // synced item; keep them cached across a whole sync
+        db.execSQL("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
+    }
+
+    interface Indexes {
+        String ITEMS_SERVER_ID = "items_server_id";
+        String ITEMS_PUBLISHED_DATE = "items_published_date";
+    }
+
+    interface Triggers {
+        String ITEM_BODIES_AFTER_DELETE = "item_bodies_ad";
     }
 
     @Override
@@ -21,16 +45,68 @@ public class ItemsDatabase extends SQLiteOpenHelper {
                 + ItemsContract.ItemsColumns.SERVER_ID + " TEXT,"
                 + ItemsContract.ItemsColumns.TITLE + " TEXT NOT NULL,"
                 + ItemsContract.ItemsColumns.AUTHOR + " TEXT NOT NULL,"
-                + ItemsContract.ItemsColumns.BODY + " TEXT NOT NULL,"
                 + ItemsContract.ItemsColumns.THUMB_URL + " TEXT NOT NULL,"
                 + ItemsContract.ItemsColumns.PHOTO_URL + " TEXT NOT NULL,"
                 + ItemsContract.ItemsColumns.ASPECT_RATIO + " REAL NOT NULL DEFAULT 1.5,"
-                + ItemsContract.ItemsColumns.PUBLISHED_DATE + " TEXT NOT NULL"
+                + ItemsContract.ItemsColumns.PUBLISHED_DATE + " INTEGER NOT NULL DEFAULT 0,"
+                + ItemsContract.ItemsColumns.CONTENT_HASH + " INTEGER NOT NULL DEFAULT 0"
                 + ")" );
+        createItemsIndexes(db);
+        createBodiesTable(db);
+        createSearchIndex(db);
+    }
+
+    private static void createItemsIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX " + Indexes.ITEMS_SERVER_ID + " ON " + Tables.ITEMS
+                + "(" + ItemsContract.ItemsColumns.SERVER_ID + ")");
+        // Matches the list order, including its _id tie-breaker, so sorted and keyset-paged
+        // queries walk the index instead of sorting in a temp B-tree.
+        db.execSQL("CREATE INDEX " + Indexes.ITEMS_PUBLISHED_DATE + " ON " + Tables.ITEMS
+                + "(" + ItemsContract.ItemsColumns.PUBLISHED_DATE + " DESC, "
+                + ItemsContract.ItemsColumns._ID + " DESC)");
+    }
+
+    /**
+     * Creates the table of compressed article bodies, see {@link ArticleTextStore}. A body
+     * goes away with its item.
+     */
+    private static void createBodiesTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + Tables.ITEM_BODIES + " ("
+                + ArticleTextStore.ITEM_ID + " INTEGER PRIMARY KEY,"
+                + ItemsContract.ItemsColumns.BODY + " BLOB NOT NULL"
+                + ")");
+        db.execSQL("CREATE TRIGGER " + Triggers.ITEM_BODIES_AFTER_DELETE + " AFTER DELETE ON "
+                + Tables.ITEMS + " BEGIN DELETE FROM " + Tables.ITEM_BODIES + " WHERE "
+                + ArticleTextStore.ITEM_ID + "=old." + ItemsContract.ItemsColumns._ID + "; END");
+    }
+
+    /**
+     * Creates the FTS4 index over title, author and body. Bodies are stored compressed, so
+     * the index is fed by {@link ArticleTextStore} rather than by triggers, and its content
+     * table only holds text while entries are removed.
+     * <p>
+     * Being empty otherwise, the content table does not match the index: the FTS
+     * {@code 'rebuild'} command would empty the index, and {@code 'integrity-check'} would
+     * report it corrupt. To rebuild it, drop and recreate both tables and index every item
+     * again with {@link ArticleTextStore#index(SQLiteDatabase, long)}.
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        final String columns = ItemsContract.ItemsColumns.TITLE + ", "
+                + ItemsContract.ItemsColumns.AUTHOR + ", "
+                + ItemsContract.ItemsColumns.BODY;
+        db.execSQL("CREATE TABLE " + Tables.ITEMS_FTS_CONTENT + " (docid INTEGER PRIMARY KEY, "
+                + columns + ")");
+        db.execSQL("CREATE VIRTUAL TABLE " + Tables.ITEMS_FTS + " USING fts4(content=\""
+                + Tables.ITEMS_FTS_CONTENT + "\", " + columns + ")");
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Items are only a cache of the remote feed, so older schemas are simply rebuilt
+        // and refilled by the next sync.
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.ITEMS_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.ITEMS_FTS_CONTENT);
+        db.execSQL("DROP TABLE IF EXISTS " + Tables.ITEM_BODIES);
         db.execSQL("DROP TABLE IF EXISTS " + Tables.ITEMS);
         onCreate(db);
     }
@@ -4,35 +4,83 @@ package com.example.xyzreader.data;
 import android.content.ContentProvider;
 import android.content.ContentProviderOperation;
 import android.content.ContentProviderResult;
+import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
 import android.support.annotation.NonNull;
+import android.text.TextUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ItemsProvider extends ContentProvider {
 	private SQLiteOpenHelper mOpenHelper;
 
 	interface Tables {
 		String ITEMS = "items";
+		String ITEM_BODIES = "item_bodies";
+		String ITEMS_FTS = "items_fts";
+		String ITEMS_FTS_CONTENT = "items_fts_content";
 	}
 
 	private static final int ITEMS = 0;
 	private static final int ITEMS__ID = 1;
+	private static final int ITEMS_SEARCH = 2;
+	private static final int SYNC_HISTORY = 3;
 
 	private static final UriMatcher sUriMatcher = buildUriMatcher();
 
+	private static final String ITEM_ID_SELECTION = ItemsContract.Items._ID + "=?";
+
+	/** Changed items notified one by one, beyond which the whole directory is notified. */
+	private static final int MAX_ITEM_NOTIFICATIONS = 32;
+
+	/** Items {@link #bulkInsert} writes between letting waiting readers in. */
+	private static final int YIELD_INTERVAL = 50;
+
+	/** Change notifications sent by this process, for {@link SyncMetrics}. */
+	private static final AtomicInteger sNotificationCount = new AtomicInteger();
+
+	/** Changes of the {@link #applyBatch} running on each thread, notified once it commits. */
+	private final ThreadLocal<ChangeSet> mBatchChanges = new ThreadLocal<>();
+
+	/**
+	 * A builder per thread, reset for every call. No call builds a selection while another
+	 * one's is still in use, so one is all a thread needs.
+	 */
+	private final ThreadLocal<SelectionBuilder> mBuilders = new ThreadLocal<SelectionBuilder>() {
+		@Override
+		protected SelectionBuilder initialValue() {
+			return new SelectionBuilder();
+		}
+	};
+
+	/** The last {@link #queryItem} SQL built on each thread. */
+	private final ThreadLocal<ItemQuery> mItemQueries = new ThreadLocal<ItemQuery>() {
+		@Override
+		protected ItemQuery initialValue() {
+			return new ItemQuery();
+		}
+	};
+
 	private static UriMatcher buildUriMatcher() {
 		final UriMatcher matcher = new UriMatcher(UriMatcher.NO_MATCH);
 		final String authority = ItemsContract.CONTENT_AUTHORITY;
 		matcher.addURI(authority, "items", ITEMS);
 		matcher.addURI(authority, "items/#", ITEMS__ID);
+		matcher.addURI(authority, "items/search", ITEMS_SEARCH);
+		matcher.addURI(authority, "sync_history", SYNC_HISTORY);
 		return matcher;
 	}
 
@@ -47,9 +95,12 @@ public class ItemsProvider extends ContentProvider {
 		final int match = sUriMatcher.match(uri);
 		switch (match) {
 			case ITEMS:
+			case ITEMS_SEARCH:
 				return ItemsContract.Items.CONTENT_TYPE;
 			case ITEMS__ID:
 				return ItemsContract.Items.CONTENT_ITEM_TYPE;
+			case SYNC_HISTORY:
+				return ItemsContract.SyncHistory.CONTENT_TYPE;
 			default:
 				throw new UnsupportedOperationException("Unknown uri: " + uri);
 		}
@@ -57,23 +108,134 @@ public class ItemsProvider extends ContentProvider {
 
 	@Override
 	public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+		final int match = sUriMatcher.match(uri);
+		if (match == SYNC_HISTORY) {
+			final Cursor cursor = SyncMetricsLog.get(getContext()).query(projection);
+			cursor.setNotificationUri(getContext().getContentResolver(), uri);
+			return cursor;
+		}
 		final SQLiteDatabase db = mOpenHelper.getReadableDatabase();
-		final SelectionBuilder builder = buildSelection(uri);
-		Cursor cursor = builder.where(selection, selectionArgs).query(db, projection, sortOrder);
+		if (match == ITEMS_SEARCH) {
+			return search(db, uri, projection);
+		}
+		final String limit = uri.getQueryParameter(ItemsContract.QUERY_PARAMETER_LIMIT);
+		final int bodyColumn = indexOf(projection, ItemsContract.Items.BODY);
+		if (bodyColumn >= 0) {
+			// Bodies are stored compressed elsewhere; select the id in their place and
+			// decompress them for just the rows returned
+			projection = projection.clone();
+			projection[bodyColumn] = Tables.ITEMS + "." + ItemsContract.Items._ID;
+		}
+		Cursor cursor;
+		if (match == ITEMS__ID && TextUtils.isEmpty(selection) && sortOrder == null
+				&& limit == null) {
+			cursor = queryItem(db, uri.getPathSegments().get(1), projection);
+		} else {
+			cursor = buildSelection(uri, match).where(selection, selectionArgs)
+					.query(db, projection, null, null, sortOrder, limit);
+		}
+		if (bodyColumn >= 0) {
+			projection[bodyColumn] = ItemsContract.Items.BODY;
+			cursor = withBodies(db, cursor, projection, bodyColumn);
+		}
         if (cursor != null) {
-            cursor.setNotificationUri(getContext().getContentResolver(), uri);
+			// A directory is notified once per change, an item only when it changed itself
+			cursor.setNotificationUri(getContext().getContentResolver(),
+					match == ITEMS ? ItemsContract.Items.buildChangesUri() : uri);
         }
         return cursor;
 	}
 
+	/**
+	 * Reads one item by id, as the detail pages do for every article paged to. The SQL is
+	 * built once per projection and thread rather than by a {@link SelectionBuilder} for each
+	 * item, and being the same string every time, it finds its compiled statement in the
+	 * connection's statement cache.
+	 */
+	private Cursor queryItem(SQLiteDatabase db, String id, String[] projection) {
+		final ItemQuery itemQuery = mItemQueries.get();
+		if (itemQuery.sql == null || !Arrays.equals(itemQuery.projection, projection)) {
+			itemQuery.projection = projection != null ? projection.clone() : null;
+			itemQuery.sql = SQLiteQueryBuilder.buildQueryString(false, Tables.ITEMS, projection,
+					ITEM_ID_SELECTION, null, null, null, null);
+		}
+		final long start = QueryProfiler.start();
+		final Cursor cursor = db.rawQuery(itemQuery.sql, new String[] { id });
+		QueryProfiler.endQuery(start, "items/#", itemQuery.sql, cursor);
+		return cursor;
+	}
+
+	private static Cursor withBodies(SQLiteDatabase db, Cursor cursor, String[] projection,
+			int bodyColumn) {
+		final MatrixCursor result = new MatrixCursor(projection, cursor.getCount());
+		try {
+			while (cursor.moveToNext()) {
+				final Object[] values = new Object[projection.length];
+				for (int i = 0; i < projection.length; i++) {
+					values[i] = i == bodyColumn
+							? ArticleTextStore.getBody(db, cursor.getLong(i))
+							: ArticleSearch.getValue(cursor, i);
+				}
+				result.addRow(values);
+			}
+		} finally {
+			cursor.close();
+		}
+		return result;
+	}
+
+	private static int indexOf(String[] projection, String column) {
+		if (projection != null) {
+			for (int i = 0; i < projection.length; i++) {
+				if (column.equals(projection[i])) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private Cursor search(SQLiteDatabase db, Uri uri, String[] projection) {
+		final String query = uri.getQueryParameter(ItemsContract.QUERY_PARAMETER_QUERY);
+		final String limit = uri.getQueryParameter(ItemsContract.QUERY_PARAMETER_LIMIT);
+		final long start = QueryProfiler.start();
+		final Cursor cursor = ArticleSearch.query(db, query, projection,
+				limit != null ? Integer.parseInt(limit) : ArticleSearch.DEFAULT_LIMIT);
+		QueryProfiler.endQuery(start, "items/search", Tables.ITEMS_FTS + " MATCH ?", cursor);
+		// Results change whenever any item does
+		cursor.setNotificationUri(getContext().getContentResolver(),
+				ItemsContract.Items.buildChangesUri());
+		return cursor;
+	}
+
 	@Override
 	public Uri insert(Uri uri, ContentValues values) {
 		final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
 		final int match = sUriMatcher.match(uri);
 		switch (match) {
 			case ITEMS: {
-				final long _id = db.insertOrThrow(Tables.ITEMS, null, values);
-                getContext().getContentResolver().notifyChange(uri, null);
+				final String body = values.getAsString(ItemsContract.Items.BODY);
+				if (body == null) {
+					throw new SQLiteConstraintException("NOT NULL constraint failed: "
+							+ ItemsContract.Items.BODY);
+				}
+				final ContentValues row = new ContentValues(values);
+				row.remove(ItemsContract.Items.BODY);
+				final ChangeSet changes = currentChanges();
+				final long _id;
+				db.beginTransaction();
+				try {
+					_id = db.insertOrThrow(Tables.ITEMS, null, row);
+					ArticleTextStore.putBody(db, _id, body);
+					ArticleTextStore.index(db, _id, row.getAsString(ItemsContract.Items.TITLE),
+							row.getAsString(ItemsContract.Items.AUTHOR), body);
+					db.setTransactionSuccessful();
+				} finally {
+					db.endTransaction();
+				}
+				// Nobody can be observing the new item's URI yet
+				changes.changed = true;
+				notifyUnlessBatched(changes);
 				return ItemsContract.Items.buildItemUri(_id);
 			}
 			default: {
@@ -82,37 +244,202 @@ public class ItemsProvider extends ContentProvider {
 		}
 	}
 
+	/**
+	 * Writes items by {@link ItemsContract.Items#SERVER_ID}: items the provider already has
+	 * are updated in place, keeping their {@code _id}, the others are inserted. Runs in one
+	 * transaction, but lets waiting readers in every {@link #YIELD_INTERVAL} items, so the
+	 * rows written up to then are committed even if a later one fails.
+	 */
+	@Override
+	public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+		if (sUriMatcher.match(uri) != ITEMS) {
+			throw new UnsupportedOperationException("Unknown uri: " + uri);
+		}
+		final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+		final ChangeSet changes = currentChanges();
+		final ItemUpserter upserter = new ItemUpserter(db);
+		final long start = QueryProfiler.start();
+		db.beginTransaction();
+		try {
+			for (int i = 0; i < values.length; i++) {
+				final long id = upserter.findId(values[i]);
+				if (id < 0) {
+					upserter.insert(values[i]);
+					changes.changed = true;
+				} else {
+					upserter.update(id, values[i]);
+					changes.add(id);
+				}
+				if ((i + 1) % YIELD_INTERVAL == 0) {
+					db.yieldIfContendedSafely();
+				}
+			}
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+			upserter.close();
+			QueryProfiler.end(start, "items", "UPSERT " + Tables.ITEMS, values.length, -1);
+			// Items written before the last yield stay committed when a later one fails
+			notifyUnlessBatched(changes);
+		}
+		return values.length;
+	}
+
 	@Override
 	public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
 		final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
-		final SelectionBuilder builder = buildSelection(uri);
-        getContext().getContentResolver().notifyChange(uri, null);
-		return builder.where(selection, selectionArgs).update(db, values);
+		final SelectionBuilder builder = buildSelection(uri).where(selection, selectionArgs);
+		final ChangeSet changes = currentChanges();
+		final String body = values.getAsString(ItemsContract.Items.BODY);
+		final ContentValues row = new ContentValues(values);
+		row.remove(ItemsContract.Items.BODY);
+		final boolean reindex = body != null || row.containsKey(ItemsContract.Items.TITLE)
+				|| row.containsKey(ItemsContract.Items.AUTHOR);
+		final long[] ids;
+		final int count;
+		db.beginTransaction();
+		try {
+			ids = queryIds(db, builder);
+			if (reindex) {
+				for (long id : ids) {
+					ArticleTextStore.unindex(db, id);
+				}
+			}
+			count = row.size() > 0 ? builder.update(db, row) : ids.length;
+			if (reindex) {
+				for (long id : ids) {
+					if (body != null) {
+						ArticleTextStore.putBody(db, id, body);
+					}
+					ArticleTextStore.index(db, id);
+				}
+			}
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		changes.add(ids);
+		notifyUnlessBatched(changes);
+		return count;
 	}
 
 	@Override
 	public int delete(Uri uri, String selection, String[] selectionArgs) {
 		final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
-		final SelectionBuilder builder = buildSelection(uri);
-        getContext().getContentResolver().notifyChange(uri, null);
-		return builder.where(selection, selectionArgs).delete(db);
+		final SelectionBuilder builder = buildSelection(uri).where(selection, selectionArgs);
+		final ChangeSet changes = currentChanges();
+		final long[] ids;
+		final int count;
+		db.beginTransaction();
+		try {
+			ids = queryIds(db, builder);
+			// Bodies go with their rows by trigger, index entries have to be removed first
+			for (long id : ids) {
+				ArticleTextStore.unindex(db, id);
+			}
+			count = builder.delete(db);
+			db.setTransactionSuccessful();
+		} finally {
+			db.endTransaction();
+		}
+		changes.add(ids);
+		notifyUnlessBatched(changes);
+		return count;
+	}
+
+	/** Changes of the batch running on this thread, or a new set for a single operation. */
+	private ChangeSet currentChanges() {
+		final ChangeSet batch = mBatchChanges.get();
+		return batch != null ? batch : new ChangeSet();
+	}
+
+	private void notifyUnlessBatched(ChangeSet changes) {
+		if (mBatchChanges.get() == null) {
+			notifyChanges(changes);
+		}
+	}
+
+	/**
+	 * Notifies observers of committed changes: each changed item on its own URI, then the
+	 * {@link ItemsContract.Items#buildChangesUri() changes URI} once. Past
+	 * {@link #MAX_ITEM_NOTIFICATIONS} items, a single notification of the directory, which
+	 * reaches every observer, is cheaper.
+	 */
+	private void notifyChanges(ChangeSet changes) {
+		if (!changes.changed) {
+			return;
+		}
+		final ContentResolver resolver = getContext().getContentResolver();
+		if (changes.itemIds.size() > MAX_ITEM_NOTIFICATIONS) {
+			resolver.notifyChange(ItemsContract.Items.buildDirUri(), null, false);
+			sNotificationCount.incrementAndGet();
+			return;
+		}
+		for (long id : changes.itemIds) {
+			resolver.notifyChange(ItemsContract.Items.buildItemUri(id), null, false);
+		}
+		resolver.notifyChange(ItemsContract.Items.buildChangesUri(), null, false);
+		sNotificationCount.addAndGet(changes.itemIds.size() + 1);
+	}
+
+	/** Number of change notifications sent for items since the process started. */
+	static int getNotificationCount() {
+		return sNotificationCount.get();
+	}
+
+	/** Items changed by writes that have not been notified yet. */
+	private static final class ChangeSet {
+		/** Ids of the updated and deleted items. */
+		final HashSet<Long> itemIds = new HashSet<>();
+		/** Whether anything changed, including inserts. */
+		boolean changed;
+
+		void add(long id) {
+			itemIds.add(id);
+			changed = true;
+		}
+
+		void add(long[] ids) {
+			for (long id : ids) {
+				add(id);
+			}
+		}
+	}
+
+	/** SQL of a by-id item query, and the projection it was built for. */
+	private static final class ItemQuery {
+		String[] projection;
+		String sql;
+	}
+
+	private static long[] queryIds(SQLiteDatabase db, SelectionBuilder builder) {
+		final Cursor cursor = builder.query(db, new String[] { ItemsContract.Items._ID }, null);
+		try {
+			final long[] ids = new long[cursor.getCount()];
+			for (int i = 0; cursor.moveToNext(); i++) {
+				ids[i] = cursor.getLong(0);
+			}
+			return ids;
+		} finally {
+			cursor.close();
+		}
 	}
 
 	private SelectionBuilder buildSelection(Uri uri) {
-		final SelectionBuilder builder = new SelectionBuilder();
-		final int match = sUriMatcher.match(uri);
-		return buildSelection(uri, match, builder);
+		return buildSelection(uri, sUriMatcher.match(uri));
 	}
 
-	private SelectionBuilder buildSelection(Uri uri, int match, SelectionBuilder builder) {
+	private SelectionBuilder buildSelection(Uri uri, int match) {
+		final SelectionBuilder builder = mBuilders.get().reset();
 		final List<String> paths = uri.getPathSegments();
 		switch (match) {
 			case ITEMS: {
-				return builder.table(Tables.ITEMS);
+				return builder.table(Tables.ITEMS).profileAs("items");
 			}
 			case ITEMS__ID: {
 				final String _id = paths.get(1);
-				return builder.table(Tables.ITEMS).where(ItemsContract.Items._ID + "=?", _id);
+				return builder.table(Tables.ITEMS).profileAs("items/#")
+						.where(ITEM_ID_SELECTION, _id);
 			}
 			default: {
 				throw new UnsupportedOperationException("Unknown uri: " + uri);
@@ -123,22 +450,27 @@ public class ItemsProvider extends ContentProvider {
     /**
      * Apply the given set of {@link ContentProviderOperation}, executing inside
      * a {@link SQLiteDatabase} transaction. All changes will be rolled back if
-     * any single one fails.
+     * any single one fails. Observers are notified once, after the commit.
      */
     public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
             throws OperationApplicationException {
         final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        final ChangeSet changes = new ChangeSet();
+        final ContentProviderResult[] results;
+        mBatchChanges.set(changes);
         db.beginTransaction();
         try {
             final int numOperations = operations.size();
-            final ContentProviderResult[] results = new ContentProviderResult[numOperations];
+            results = new ContentProviderResult[numOperations];
             for (int i = 0; i < numOperations; i++) {
                 results[i] = operations.get(i).apply(this, results, i);
             }
             db.setTransactionSuccessful();
-            return results;
         } finally {
             db.endTransaction();
+            mBatchChanges.remove();
         }
+        notifyChanges(changes);
+        return results;
     }
 }
@@ -0,0 +1,214 @@
+package com.example.xyzreader.data;
+
+import android.database.AbstractWindowedCursor;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opt-in profiling of the statements {@link ItemsProvider} runs: latency histograms, row
+ * counts and cursor window fill per URI pattern and SQL shape, where the shape is the
+ * statement with its arguments left out. Statements slower than {@link #SLOW_MILLIS} are
+ * logged with the stack that issued them, and the first slow run of each query shape also
+ * with its query plan.
+ * <p>
+ * Enable it with {@code adb shell setprop log.tag.QueryProfiler DEBUG} before the app starts,
+ * or with {@link #setEnabled}. While disabled, a statement costs one volatile read.
+ */
+public final class QueryProfiler {
+    private static final String TAG = "QueryProfiler";
+
+    static final long SLOW_MILLIS = 50;
+    /** Latency buckets by powers of two of microseconds, the last one open ended. */
+    private static final int BUCKETS = 24;
+
+    private static volatile boolean sEnabled = Log.isLoggable(TAG, Log.DEBUG);
+
+    /** Guarded by itself. */
+    private static final HashMap<String, Stats> sStats = new HashMap<>();
+
+    private QueryProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /** Returns the start time of a statement to pass to {@link #end}, or 0 while disabled. */
+    static long start() {
+        return sEnabled ? SystemClock.elapsedRealtimeNanos() : 0;
+    }
+
+    /**
+     * Records a statement that started at {@code start}. Does nothing if {@code start} is 0.
+     *
+     * @param windowRows rows the cursor window was filled with, or -1 if there is none
+     * @return whether this is the first slow run of the shape, whose plan is worth logging
+     */
+    static boolean end(long start, String uriPattern, String shape, int rows, int windowRows) {
+        if (start == 0) {
+            return false;
+        }
+        long nanos = SystemClock.elapsedRealtimeNanos() - start;
+        String key = uriPattern + " | " + shape;
+        boolean firstSlow;
+        synchronized (sStats) {
+            Stats stats = sStats.get(key);
+            if (stats == null) {
+                stats = new Stats();
+                sStats.put(key, stats);
+            }
+            firstSlow = stats.add(nanos, rows, windowRows);
+        }
+        long millis = nanos / 1000000;
+        if (millis >= SLOW_MILLIS) {
+            Log.w(TAG, "Slow statement, " + millis + " ms, " + rows + " rows: " + key,
+                    new Throwable("Issued from"));
+        }
+        return firstSlow;
+    }
+
+    /**
+     * Records a query on {@code cursor}, filling its window to count the rows.
+     *
+     * @return whether this is the first slow run of the shape, whose plan is worth logging
+     */
+    static boolean endQuery(long start, String uriPattern, String shape, Cursor cursor) {
+        if (start == 0 || cursor == null) {
+            return false;
+        }
+        int rows = cursor.getCount();
+        int windowRows = -1;
+        if (cursor instanceof AbstractWindowedCursor
+                && ((AbstractWindowedCursor) cursor).hasWindow()) {
+            windowRows = ((AbstractWindowedCursor) cursor).getWindow().getNumRows();
+        }
+        return end(start, uriPattern, shape, rows, windowRows);
+    }
+
+    /** Logs the plan SQLite chose for {@code sql}. */
+    static void explain(SQLiteDatabase db, String sql, String[] args) {
+        Cursor plan = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            StringBuilder text = new StringBuilder("Plan of ").append(sql);
+            int detail = plan.getColumnIndex("detail");
+            while (plan.moveToNext()) {
+                text.append("\n  ").append(plan.getString(detail));
+            }
+            Log.i(TAG, text.toString());
+        } finally {
+            plan.close();
+        }
+    }
+
+    /** Logs the statistics of every statement shape seen, most time consuming first. */
+    public static void logStats() {
+        if (!sEnabled) {
+            return;
+        }
+        ArrayList<Map.Entry<String, Stats>> entries;
+        synchronized (sStats) {
+            entries = new ArrayList<>(sStats.size());
+            for (Map.Entry<String, Stats> entry : sStats.entrySet()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                        entry.getValue().copy()));
+            }
+        }
+        Collections.sort(entries, new Comparator<Map.Entry<String, Stats>>() {
+            @Override
+            public int compare(Map.Entry<String, Stats> a, Map.Entry<String, Stats> b) {
+                return Long.compare(b.getValue().totalNanos, a.getValue().totalNanos);
+            }
+        });
+        for (Map.Entry<String, Stats> entry : entries) {
+            Log.i(TAG, entry.getKey() + ": " + entry.getValue());
+        }
+    }
+
+    private static final class Stats {
+        int count;
+        long totalNanos;
+        long maxNanos;
+        long rows;
+        /** Rows of the runs with a cursor window, and how many of them the window held. */
+        long windowedRows;
+        long windowRows;
+        boolean slowSeen;
+        int[] histogram = new int[BUCKETS];
+
+        /** Returns whether this was the first slow run. */
+        boolean add(long nanos, int rows, int windowRows) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            this.rows += rows;
+            if (windowRows >= 0) {
+                windowedRows += rows;
+                this.windowRows += windowRows;
+            }
+            long micros = Math.max(nanos / 1000, 1);
+            int bucket = 63 - Long.numberOfLeadingZeros(micros);
+            histogram[Math.min(bucket, BUCKETS - 1)]++;
+            if (nanos / 1000000 >= SLOW_MILLIS && !slowSeen) {
+                slowSeen = true;
+                return true;
+            }
+            return false;
+        }
+
+        Stats copy() {
+            Stats copy = new Stats();
+            copy.count = count;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            copy.rows = rows;
+            copy.windowedRows = windowedRows;
+            copy.windowRows = windowRows;
+            copy.slowSeen = slowSeen;
+            copy.histogram = histogram.clone();
+            return copy;
+        }
+
+        /** Upper bound in micros of the bucket holding the given fraction of runs. */
+        private long percentileMicros(double fraction) {
+            int target = (int) Math.ceil(count * fraction);
+            int seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= target) {
+                    return 1L << (i + 1);
+                }
+            }
+            return 1L << BUCKETS;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder()
+                    .append(count).append(" runs, mean ")
+                    .append(totalNanos / count / 1000).append(" us, p50 < ")
+                    .append(percentileMicros(0.5)).append(" us, p99 < ")
+                    .append(percentileMicros(0.99)).append(" us, max ")
+                    .append(maxNanos / 1000).append(" us, ")
+                    .append(rows / count).append(" rows/run");
+            if (windowedRows > 0) {
+                // Below 100%, reading the rows took more than one window
+                text.append(", window fill ").append(windowRows * 100 / windowedRows)
+                        .append('%');
+            }
+            return text.toString();
+        }
+    }
+}
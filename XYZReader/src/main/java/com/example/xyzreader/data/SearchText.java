@@ -0,0 +1,170 @@
+package com.example.xyzreader.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The text handling of {@link ArticleSearch}: query parsing, snippets and relevance scores.
+ * Works on strings and {@code matchinfo()} blobs only, without a database.
+ */
+final class SearchText {
+    /** Relevance weight of a hit in each indexed column, in index column order. */
+    private static final double[] COLUMN_WEIGHTS = { 3.0, 2.0, 1.0 };
+
+    /** Words in a snippet, and how many of them precede the first hit. */
+    private static final int SNIPPET_WORDS = 16;
+    private static final int SNIPPET_LEAD_WORDS = 4;
+    private static final String ELLIPSIS = "\u2026";
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>");
+
+    private SearchText() {
+    }
+
+    /**
+     * Turns free text into an FTS expression matching documents that contain every word, each
+     * as a prefix. Punctuation is dropped so user input can never be an invalid expression.
+     */
+    static String toMatchExpression(String query) {
+        List<String> terms = toTerms(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String term : terms) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(term).append('*');
+        }
+        return match.toString();
+    }
+
+    /** Splits free text into the lower case words it is made of. */
+    static List<String> toTerms(String query) {
+        ArrayList<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= query.length(); i++) {
+            char c = i < query.length() ? query.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Builds an excerpt of {@code body} around the first word starting with one of
+     * {@code terms}, with all such words in {@code <b>} tags, or the start of the body if
+     * none matches. Markup is dropped. Stands in for FTS {@code snippet()}, which needs the
+     * text in the database while bodies are only stored compressed.
+     */
+    static String snippet(String body, List<String> terms) {
+        String text = MARKUP.matcher(body).replaceAll(" ");
+        int n = text.length();
+
+        // Find the first hit, remembering where the few words before it start
+        int[] recent = new int[SNIPPET_LEAD_WORDS + 1];
+        int words = 0;
+        int from = 0;
+        int i = 0;
+        while (i < n) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            recent[words % recent.length] = start;
+            words++;
+            if (matches(text, start, i, terms)) {
+                int lead = Math.min(words - 1, SNIPPET_LEAD_WORDS);
+                from = recent[(words - 1 - lead) % recent.length];
+                break;
+            }
+        }
+
+        StringBuilder snippet = new StringBuilder(SNIPPET_WORDS * 8);
+        if (from > 0) {
+            snippet.append(ELLIPSIS);
+        }
+        words = 0;
+        i = from;
+        while (i < n && words < SNIPPET_WORDS) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                if (!Character.isWhitespace(c)) {
+                    snippet.append(c);
+                } else if (snippet.length() > 0 && snippet.charAt(snippet.length() - 1) != ' ') {
+                    snippet.append(' ');
+                }
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            boolean hit = matches(text, start, i, terms);
+            snippet.append(hit ? "<b>" : "").append(text, start, i).append(hit ? "</b>" : "");
+            words++;
+        }
+        int end = snippet.length();
+        while (end > 0 && snippet.charAt(end - 1) == ' ') {
+            end--;
+        }
+        snippet.setLength(end);
+        if (i < n && text.substring(i).trim().length() > 0) {
+            snippet.append(ELLIPSIS);
+        }
+        return snippet.toString();
+    }
+
+    private static boolean matches(String text, int start, int end, List<String> terms) {
+        for (String term : terms) {
+            if (term.length() <= end - start && text.regionMatches(true, start, term, 0,
+                    term.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * BM25-style score without length normalisation, from {@code matchinfo(..., 'pcnx')}:
+     * phrase count, column count, row count, then per phrase and column the hits in this row,
+     * the hits in all rows and the number of rows with a hit.
+     */
+    static double score(byte[] matchinfo) {
+        IntBuffer info = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = info.get(0);
+        int columns = info.get(1);
+        int rows = info.get(2);
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int base = 3 + 3 * (phrase * columns + column);
+                int hits = info.get(base);
+                if (hits == 0) {
+                    continue;
+                }
+                int rowsWithHits = info.get(base + 2);
+                double idf = Math.log(1 + (rows - rowsWithHits + 0.5) / (rowsWithHits + 0.5));
+                double weight = column < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[column] : 1.0;
+                score += weight * idf * hits / (hits + 1.2);
+            }
+        }
+        return score;
+    }
+}
@@ -25,6 +25,7 @@ package com.example.xyzreader.data;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
 import android.text.TextUtils;
 
 import java.util.ArrayList;
@@ -41,12 +42,19 @@ public class SelectionBuilder {
     private HashMap<String, String> mProjectionMap;
     private StringBuilder mSelection;
     private ArrayList<String> mSelectionArgs;
+    private String mProfileName;
+    /** Built from the clauses on first use and kept until they change. */
+    private String mBuiltSelection;
+    private String[] mBuiltSelectionArgs;
 
     /**
      * Reset any internal state, allowing this builder to be recycled.
      */
     public SelectionBuilder reset() {
         mTable = null;
+        mProfileName = null;
+        mBuiltSelection = null;
+        mBuiltSelectionArgs = null;
 		if (mProjectionMap != null) {
 			mProjectionMap.clear();
 		}
@@ -75,6 +83,8 @@ public class SelectionBuilder {
         }
 
         ensureSelection(selection.length());
+        mBuiltSelection = null;
+        mBuiltSelectionArgs = null;
         if (mSelection.length() > 0) {
             mSelection.append(" AND ");
         }
@@ -95,6 +105,15 @@ public class SelectionBuilder {
         return this;
     }
 
+    /**
+     * Names the statements of this builder for {@link QueryProfiler}, usually by the URI
+     * pattern they serve.
+     */
+    public SelectionBuilder profileAs(String name) {
+        mProfileName = name;
+        return this;
+    }
+
     private void assertTable() {
         if (mTable == null) {
             throw new IllegalStateException("Table not specified");
@@ -137,24 +156,24 @@ public class SelectionBuilder {
      * @see #getSelectionArgs()
      */
     public String getSelection() {
-    	if (mSelection != null) {
-            return mSelection.toString();
-    	} else {
-    		return null;
+    	if (mBuiltSelection == null && mSelection != null && mSelection.length() > 0) {
+            mBuiltSelection = mSelection.toString();
     	}
+    	return mBuiltSelection;
     }
 
     /**
-     * Return selection arguments for current internal state.
+     * Return selection arguments for current internal state. The array is shared by
+     * every call until the selection changes, and must not be modified.
      *
      * @see #getSelection()
      */
     public String[] getSelectionArgs() {
-    	if (mSelectionArgs != null) {
-            return mSelectionArgs.toArray(new String[mSelectionArgs.size()]);
-    	} else {
-    		return null;
+    	if (mBuiltSelectionArgs == null && mSelectionArgs != null
+    	        && !mSelectionArgs.isEmpty()) {
+            mBuiltSelectionArgs = mSelectionArgs.toArray(new String[mSelectionArgs.size()]);
     	}
+    	return mBuiltSelectionArgs;
     }
 
     private void mapColumns(String[] columns) {
@@ -187,8 +206,21 @@ public class SelectionBuilder {
             String having, String orderBy, String limit) {
         assertTable();
         if (columns != null) mapColumns(columns);
-        return db.query(mTable, columns, getSelection(), getSelectionArgs(), groupBy, having,
-                orderBy, limit);
+        final String selection = getSelection();
+        final String[] selectionArgs = getSelectionArgs();
+        final long start = QueryProfiler.start();
+        final Cursor cursor = db.query(mTable, columns, selection, selectionArgs, groupBy,
+                having, orderBy, limit);
+        if (start != 0) {
+            // The limit is left out of the shape, pages of any size are the same query
+            final String shape = SQLiteQueryBuilder.buildQueryString(false, mTable, columns,
+                    selection, groupBy, having, orderBy, null);
+            if (QueryProfiler.endQuery(start, mProfileName, shape, cursor)) {
+                QueryProfiler.explain(db, SQLiteQueryBuilder.buildQueryString(false, mTable,
+                        columns, selection, groupBy, having, orderBy, limit), selectionArgs);
+            }
+        }
+        return cursor;
     }
 
     /**
@@ -196,7 +228,13 @@ public class SelectionBuilder {
      */
     public int update(SQLiteDatabase db, ContentValues values) {
         assertTable();
-        return db.update(mTable, values, getSelection(), getSelectionArgs());
+        final long start = QueryProfiler.start();
+        final int count = db.update(mTable, values, getSelection(), getSelectionArgs());
+        if (start != 0) {
+            QueryProfiler.end(start, mProfileName, "UPDATE " + mTable + " SET "
+                    + values.keySet() + " WHERE " + getSelection(), count, -1);
+        }
+        return count;
     }
 
     /**
@@ -204,6 +242,12 @@ public class SelectionBuilder {
      */
     public int delete(SQLiteDatabase db) {
         assertTable();
-        return db.delete(mTable, getSelection(), getSelectionArgs());
+        final long start = QueryProfiler.start();
+        final int count = db.delete(mTable, getSelection(), getSelectionArgs());
+        if (start != 0) {
+            QueryProfiler.end(start, mProfileName, "DELETE FROM " + mTable + " WHERE "
+                    + getSelection(), count, -1);
+        }
+        return count;
     }
 }
@@ -0,0 +1,182 @@
+package com.example.xyzreader.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single point through which feed syncs are requested and observed. Requests made while a
+ * sync is running, or a requested one is pending, join it instead of starting another, and a
+ * new sync does not start within {@link SyncPolicy#MIN_INTERVAL_MILLIS} of the previous one.
+ * Progress and results are published as a {@link SyncState} to listeners on the main thread.
+ */
+public final class SyncCoordinator {
+    private static final String TAG = "SyncCoordinator";
+
+    private static final String PREFS_NAME = "sync";
+    private static final String PREF_LAST_SUCCESS = "last_success";
+
+    public interface Listener {
+        /** Called on the main thread with the new state. */
+        void onSyncStateChanged(SyncState state);
+    }
+
+    private static SyncCoordinator sInstance;
+
+    private final SharedPreferences mPrefs;
+    private final SyncPolicy mPolicy;
+    /** Enqueues the work of a requested sync. */
+    private final Runnable mEnqueueSync;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    private SyncState mState;
+    /** Syncs between {@link #onSyncStarted} and their end; periodic and requested may overlap. */
+    private int mRunningSyncs;
+    /** Whether a request joined the running syncs, and is answered once they have all ended. */
+    private boolean mJoined;
+    /** When the last sync was started, for rate limiting; 0 if none was in this process. */
+    private long mLastStartMillis;
+
+    public static synchronized SyncCoordinator get(Context context) {
+        if (sInstance == null) {
+            sInstance = new SyncCoordinator(context.getApplicationContext(),
+                    new SyncPolicy(SyncPolicy.SYSTEM_CLOCK), new Runnable() {
+                        @Override
+                        public void run() {
+                            SyncScheduler.enqueueSync();
+                        }
+                    });
+        }
+        return sInstance;
+    }
+
+    SyncCoordinator(Context context, SyncPolicy policy, Runnable enqueueSync) {
+        mPrefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        mPolicy = policy;
+        mEnqueueSync = enqueueSync;
+        mState = new SyncState(false, false, mPrefs.getLong(PREF_LAST_SUCCESS, 0), 0, false);
+    }
+
+    public synchronized SyncState getState() {
+        return mState;
+    }
+
+    /** Adds a listener and calls it right away with the current state. */
+    public void addListener(final Listener listener) {
+        mListeners.add(listener);
+        final SyncState state = getState();
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mListeners.contains(listener)) {
+                    listener.onSyncStateChanged(state);
+                }
+            }
+        });
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Asks for a sync. Unless {@code force} is set, nothing happens while the last successful
+     * sync is recent, which makes this cheap to call whenever the app is opened. Either way
+     * the request joins any sync that is running, background ones included, or a requested
+     * one that is pending, and is dropped if a sync started moments ago. Requested syncs
+     * waiting to be retried do not hold it up.
+     *
+     * @return whether a new sync was scheduled
+     */
+    public boolean requestSync(boolean force) {
+        synchronized (this) {
+            if (mState.isRequested()) {
+                return false;
+            }
+            if (!force && !mPolicy.isSyncDue(mState.getLastSuccessMillis())) {
+                return false;
+            }
+            if (mRunningSyncs > 0) {
+                mJoined = true;
+                publish(mState.withRequested(true));
+                return false;
+            }
+            if (mPolicy.isRateLimited(mLastStartMillis)) {
+                Log.i(TAG, "Sync requested too soon after the last one, ignoring.");
+                // Let whoever asked know nothing is going to happen
+                publish(mState);
+                return false;
+            }
+            mLastStartMillis = mPolicy.now();
+            publish(mState.withRequested(true));
+        }
+        mEnqueueSync.run();
+        return true;
+    }
+
+    /**
+     * Called by {@link SyncWorker} when it starts, also for syncs not requested here.
+     * {@code requested} tells whether it runs for {@link #requestSync}, including a retry.
+     */
+    synchronized void onSyncStarted(boolean requested) {
+        if (!requested) {
+            // Requests set it when they are made
+            mLastStartMillis = mPolicy.now();
+        }
+        mRunningSyncs++;
+        SyncState state = mState.withRunning(true);
+        publish(requested ? state.withRequested(true) : state);
+    }
+
+    /** Called by {@link SyncWorker} when a sync succeeded. */
+    synchronized void onSyncSucceeded(boolean requested, int rowsTouched) {
+        long now = mPolicy.now();
+        mPrefs.edit().putLong(PREF_LAST_SUCCESS, now).apply();
+        publish(finish(requested).withSuccess(now, rowsTouched));
+    }
+
+    /**
+     * Called by {@link SyncWorker} when a sync failed, whether or not it will be retried. A
+     * retry waiting out its backoff is no longer requested, so a new request replaces it
+     * rather than waiting for it.
+     */
+    synchronized void onSyncFailed(boolean requested) {
+        publish(finish(requested).withFailure());
+    }
+
+    /** Called by {@link SyncWorker} when it was stopped, e.g. cancelled or preempted. */
+    synchronized void onSyncStopped(boolean requested) {
+        publish(finish(requested));
+    }
+
+    private SyncState finish(boolean requested) {
+        mRunningSyncs = Math.max(mRunningSyncs - 1, 0);
+        SyncState state = mState.withRunning(mRunningSyncs > 0);
+        if (requested || mJoined && mRunningSyncs == 0) {
+            mJoined = false;
+            return state.withRequested(false);
+        }
+        return state;
+    }
+
+    SyncPolicy policy() {
+        return mPolicy;
+    }
+
+    private void publish(final SyncState state) {
+        mState = state;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (Listener listener : mListeners) {
+                    listener.onSyncStateChanged(state);
+                }
+            }
+        });
+    }
+}
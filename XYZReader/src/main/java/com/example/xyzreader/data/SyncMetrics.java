@@ -0,0 +1,201 @@
+package com.example.xyzreader.data;
+
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * What one feed sync cost, stage by stage. Recorded by {@link FeedSync} and kept by
+ * {@link SyncMetricsLog}. Instances are immutable.
+ */
+public final class SyncMetrics {
+    private final long mStartedMillis;
+    private final long mTotalMillis;
+    private final boolean mSucceeded;
+    private final boolean mNotModified;
+    private final boolean mFromCache;
+    private final long mResponseMillis;
+    private final long mBytes;
+    private final long mParseMillis;
+    private final long mWriteMillis;
+    private final int mInserted;
+    private final int mUpdated;
+    private final int mDeleted;
+    private final int mNotifications;
+
+    private SyncMetrics(long startedMillis, long totalMillis, boolean succeeded,
+            boolean notModified, boolean fromCache, long responseMillis, long bytes,
+            long parseMillis, long writeMillis, int inserted, int updated, int deleted,
+            int notifications) {
+        mStartedMillis = startedMillis;
+        mTotalMillis = totalMillis;
+        mSucceeded = succeeded;
+        mNotModified = notModified;
+        mFromCache = fromCache;
+        mResponseMillis = responseMillis;
+        mBytes = bytes;
+        mParseMillis = parseMillis;
+        mWriteMillis = writeMillis;
+        mInserted = inserted;
+        mUpdated = updated;
+        mDeleted = deleted;
+        mNotifications = notifications;
+    }
+
+    /** Time the sync started, in epoch millis. */
+    public long getStartedMillis() {
+        return mStartedMillis;
+    }
+
+    public long getTotalMillis() {
+        return mTotalMillis;
+    }
+
+    public boolean hasSucceeded() {
+        return mSucceeded;
+    }
+
+    /** Whether the server reported the feed unchanged, so nothing was read or written. */
+    public boolean isNotModified() {
+        return mNotModified;
+    }
+
+    /** Whether the feed came from the HTTP cache rather than the network. */
+    public boolean isFromCache() {
+        return mFromCache;
+    }
+
+    /** Time from sending the request to receiving the response headers. */
+    public long getResponseMillis() {
+        return mResponseMillis;
+    }
+
+    /** Bytes of feed body read, after any transfer encoding was undone. */
+    public long getBytes() {
+        return mBytes;
+    }
+
+    /** Time spent reading the feed and preparing rows, including waiting for the network. */
+    public long getParseMillis() {
+        return mParseMillis;
+    }
+
+    /** Time spent in provider transactions. */
+    public long getWriteMillis() {
+        return mWriteMillis;
+    }
+
+    public int getInserted() {
+        return mInserted;
+    }
+
+    public int getUpdated() {
+        return mUpdated;
+    }
+
+    public int getDeleted() {
+        return mDeleted;
+    }
+
+    public int getRowsTouched() {
+        return mInserted + mUpdated + mDeleted;
+    }
+
+    /** Change notifications the provider sent for the writes of this sync. */
+    public int getNotifications() {
+        return mNotifications;
+    }
+
+    /** Returns the values of the {@link ItemsContract.SyncHistory} columns, in their order. */
+    Object[] toRow() {
+        return new Object[] { mStartedMillis, mTotalMillis, mSucceeded ? 1 : 0,
+                mNotModified ? 1 : 0, mFromCache ? 1 : 0, mResponseMillis, mBytes, mParseMillis,
+                mWriteMillis, mInserted, mUpdated, mDeleted, mNotifications };
+    }
+
+    JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        Object[] row = toRow();
+        for (int i = 0; i < ItemsContract.SyncHistory.COLUMNS.length; i++) {
+            json.put(ItemsContract.SyncHistory.COLUMNS[i], row[i]);
+        }
+        return json;
+    }
+
+    static SyncMetrics fromJson(JSONObject json) throws JSONException {
+        return new SyncMetrics(
+                json.getLong(ItemsContract.SyncHistory.STARTED),
+                json.getLong(ItemsContract.SyncHistory.TOTAL_MILLIS),
+                json.getInt(ItemsContract.SyncHistory.SUCCEEDED) != 0,
+                json.getInt(ItemsContract.SyncHistory.NOT_MODIFIED) != 0,
+                json.getInt(ItemsContract.SyncHistory.FROM_CACHE) != 0,
+                json.getLong(ItemsContract.SyncHistory.RESPONSE_MILLIS),
+                json.getLong(ItemsContract.SyncHistory.BYTES),
+                json.getLong(ItemsContract.SyncHistory.PARSE_MILLIS),
+                json.getLong(ItemsContract.SyncHistory.WRITE_MILLIS),
+                json.getInt(ItemsContract.SyncHistory.INSERTED),
+                json.getInt(ItemsContract.SyncHistory.UPDATED),
+                json.getInt(ItemsContract.SyncHistory.DELETED),
+                json.getInt(ItemsContract.SyncHistory.NOTIFICATIONS));
+    }
+
+    @Override
+    public String toString() {
+        return "SyncMetrics[total=" + mTotalMillis + "ms, response=" + mResponseMillis
+                + "ms, bytes=" + mBytes + ", parse=" + mParseMillis + "ms, write="
+                + mWriteMillis + "ms, inserted=" + mInserted + ", updated=" + mUpdated
+                + ", deleted=" + mDeleted + ", notifications=" + mNotifications
+                + (mNotModified ? ", not modified" : "") + (mFromCache ? ", from cache" : "")
+                + (mSucceeded ? "" : ", failed") + "]";
+    }
+
+    /** Collects the metrics of a sync while it runs, on a single thread. */
+    static final class Recorder {
+        private final long mStartedMillis = System.currentTimeMillis();
+        private final long mStartedElapsed = SystemClock.elapsedRealtime();
+        private final int mStartNotifications = ItemsProvider.getNotificationCount();
+        private boolean mNotModified;
+        private boolean mFromCache;
+        private long mResponseMillis;
+        private long mBytes;
+        private long mReadStartElapsed;
+        private long mParseMillis;
+        private long mWriteMillis;
+        private long mWriteStartElapsed;
+        int inserted;
+        int updated;
+        int deleted;
+
+        void onResponse(boolean notModified, boolean fromCache, long responseMillis) {
+            mNotModified = notModified;
+            mFromCache = fromCache;
+            mResponseMillis = responseMillis;
+        }
+
+        void onReadStarted() {
+            mReadStartElapsed = SystemClock.elapsedRealtime();
+        }
+
+        void onReadFinished(long bytes) {
+            // Writes of full batches are interleaved with reading the feed
+            mParseMillis = SystemClock.elapsedRealtime() - mReadStartElapsed - mWriteMillis;
+            mBytes = bytes;
+        }
+
+        void onWriteStarted() {
+            mWriteStartElapsed = SystemClock.elapsedRealtime();
+        }
+
+        void onWriteFinished() {
+            mWriteMillis += SystemClock.elapsedRealtime() - mWriteStartElapsed;
+        }
+
+        SyncMetrics finish(boolean succeeded) {
+            return new SyncMetrics(mStartedMillis,
+                    SystemClock.elapsedRealtime() - mStartedElapsed, succeeded, mNotModified,
+                    mFromCache, mResponseMillis, mBytes, mParseMillis, mWriteMillis, inserted,
+                    updated, deleted, ItemsProvider.getNotificationCount() - mStartNotifications);
+        }
+    }
+}
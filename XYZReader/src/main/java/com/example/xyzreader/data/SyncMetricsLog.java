@@ -0,0 +1,160 @@
+package com.example.xyzreader.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link SyncMetrics} of the last {@link #CAPACITY} syncs, most recent first. The history
+ * is kept as a JSON array in {@code files/sync_metrics.json}, so it outlives the process and
+ * can be pulled off a device as it is; the provider also serves it as
+ * {@link ItemsContract.SyncHistory}.
+ */
+public final class SyncMetricsLog {
+    private static final String TAG = "SyncMetricsLog";
+
+    static final int CAPACITY = 50;
+    private static final String FILE_NAME = "sync_metrics.json";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static SyncMetricsLog sInstance;
+
+    private final Context mContext;
+    private final AtomicFile mFile;
+    /** Loaded from the file on first use. */
+    private ArrayDeque<SyncMetrics> mEntries;
+
+    public static synchronized SyncMetricsLog get(Context context) {
+        if (sInstance == null) {
+            sInstance = new SyncMetricsLog(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private SyncMetricsLog(Context context) {
+        mContext = context;
+        mFile = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    /** Records the metrics of a finished sync, dropping the oldest beyond the capacity. */
+    void add(SyncMetrics metrics) {
+        synchronized (this) {
+            ArrayDeque<SyncMetrics> entries = entries();
+            entries.addFirst(metrics);
+            while (entries.size() > CAPACITY) {
+                entries.removeLast();
+            }
+            save(entries);
+        }
+        mContext.getContentResolver().notifyChange(ItemsContract.SyncHistory.buildDirUri(),
+                null, false);
+    }
+
+    /** Returns the recorded metrics, most recent first. */
+    public synchronized List<SyncMetrics> getEntries() {
+        return new ArrayList<>(entries());
+    }
+
+    /** Returns the recorded metrics as a JSON array, most recent first. */
+    public synchronized String toJson() {
+        try {
+            return toJsonArray(entries()).toString();
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Returns the recorded metrics with the {@link ItemsContract.SyncHistory} columns. */
+    synchronized Cursor query(String[] projection) {
+        String[] columns = ItemsContract.SyncHistory.COLUMNS;
+        if (projection == null) {
+            projection = columns;
+        }
+        int[] indexes = new int[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            indexes[i] = indexOf(columns, projection[i]);
+            if (indexes[i] < 0) {
+                throw new IllegalArgumentException("Unknown column: " + projection[i]);
+            }
+        }
+        MatrixCursor cursor = new MatrixCursor(projection, entries().size());
+        for (SyncMetrics metrics : entries()) {
+            Object[] row = metrics.toRow();
+            Object[] values = new Object[projection.length];
+            for (int i = 0; i < projection.length; i++) {
+                values[i] = row[indexes[i]];
+            }
+            cursor.addRow(values);
+        }
+        return cursor;
+    }
+
+    private static int indexOf(String[] columns, String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equals(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static JSONArray toJsonArray(ArrayDeque<SyncMetrics> entries) throws JSONException {
+        JSONArray json = new JSONArray();
+        for (SyncMetrics metrics : entries) {
+            json.put(metrics.toJson());
+        }
+        return json;
+    }
+
+    private ArrayDeque<SyncMetrics> entries() {
+        if (mEntries == null) {
+            mEntries = load();
+        }
+        return mEntries;
+    }
+
+    private ArrayDeque<SyncMetrics> load() {
+        ArrayDeque<SyncMetrics> entries = new ArrayDeque<>(CAPACITY + 1);
+        try {
+            JSONArray json = new JSONArray(new String(mFile.readFully(), UTF_8));
+            for (int i = 0; i < json.length() && i < CAPACITY; i++) {
+                entries.addLast(SyncMetrics.fromJson(json.getJSONObject(i)));
+            }
+        } catch (FileNotFoundException e) {
+            // No sync recorded yet
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Discarding unreadable sync metrics", e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    private void save(ArrayDeque<SyncMetrics> entries) {
+        FileOutputStream out = null;
+        try {
+            byte[] json = toJsonArray(entries).toString().getBytes(UTF_8);
+            out = mFile.startWrite();
+            out.write(json);
+            mFile.finishWrite(out);
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Cannot save sync metrics", e);
+            if (out != null) {
+                mFile.failWrite(out);
+            }
+        }
+    }
+}
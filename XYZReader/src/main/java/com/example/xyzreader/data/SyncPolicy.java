@@ -0,0 +1,83 @@
+package com.example.xyzreader.data;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when the feed is synced: whether stored items are fresh enough to skip a sync,
+ * whether syncs come too fast, and which failures are worth retrying. Kept free of Android
+ * types and reading time from a {@link Clock}, so the decisions can be checked without waiting.
+ */
+final class SyncPolicy {
+    /** Source of the current time. */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /** How long after a successful sync opening the app does not sync again. */
+    static final long FRESHNESS_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    /** Least time between the starts of two syncs, however often one is asked for. */
+    static final long MIN_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    /** Interval of the background sync; the feed is edited a few times a day at most. */
+    static final long PERIODIC_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    /** Delay before the first retry of a failed sync, doubled for every further retry. */
+    static final long BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    /** Retries of a failed sync before it is given up until its next scheduled run. */
+    static final int MAX_ATTEMPTS = 5;
+
+    private final Clock mClock;
+
+    SyncPolicy(Clock clock) {
+        mClock = clock;
+    }
+
+    /**
+     * Returns whether a sync is due, given when the last one succeeded, or 0 if none has. A
+     * success time in the future means the clock was set back, which does not count as fresh.
+     */
+    boolean isSyncDue(long lastSuccessMillis) {
+        if (lastSuccessMillis <= 0) {
+            return true;
+        }
+        long age = mClock.currentTimeMillis() - lastSuccessMillis;
+        return age < 0 || age >= FRESHNESS_MILLIS;
+    }
+
+    /** Returns whether a sync may not start yet, given when the last one started, or 0. */
+    boolean isRateLimited(long lastStartMillis) {
+        if (lastStartMillis <= 0) {
+            return false;
+        }
+        long elapsed = mClock.currentTimeMillis() - lastStartMillis;
+        return elapsed >= 0 && elapsed < MIN_INTERVAL_MILLIS;
+    }
+
+    /**
+     * Returns whether {@code e} is a failure to reach the server, which may well go away
+     * by itself: a timeout, an unresolved host, or a refused or dropped connection. Anything
+     * else, such as an error response or a malformed feed, would only fail again.
+     */
+    static boolean isTransient(IOException e) {
+        return e instanceof SocketTimeoutException || e instanceof UnknownHostException
+                || e instanceof SocketException;
+    }
+
+    /** Returns whether a sync that failed on its {@code attempt}th run should be retried. */
+    boolean shouldRetry(int attempt) {
+        return attempt < MAX_ATTEMPTS;
+    }
+
+    long now() {
+        return mClock.currentTimeMillis();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.xyzreader.data;
+
+import android.os.Build;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules feed syncs. A periodic sync keeps the stored items fresh in the background, only
+ * when it is cheap for the device: on an unmetered network, while charging, and on API 23+
+ * while idle.
+ */
+public final class SyncScheduler {
+    private static final String PERIODIC_SYNC = "periodic_sync";
+    /** Name and tag of the sync asked for through {@link SyncCoordinator#requestSync}. */
+    static final String REQUESTED_SYNC = "requested_sync";
+
+    private SyncScheduler() {
+    }
+
+    /** Makes sure the periodic sync is scheduled; keeps the existing schedule if it is. */
+    public static void schedulePeriodicSync() {
+        Constraints.Builder constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            constraints.setRequiresDeviceIdle(true);
+        }
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(SyncWorker.class,
+                SyncPolicy.PERIODIC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)
+                .setConstraints(constraints.build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, SyncPolicy.BACKOFF_MILLIS,
+                        TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance().enqueueUniquePeriodicWork(PERIODIC_SYNC,
+                ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Enqueues a sync to run as soon as there is a network, replacing a requested sync that
+     * is waiting out its retry backoff. Requests go through {@link SyncCoordinator}, which
+     * joins them to a requested sync that is pending or running, and rate limits them.
+     */
+    static void enqueueSync() {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, SyncPolicy.BACKOFF_MILLIS,
+                        TimeUnit.MILLISECONDS)
+                .addTag(REQUESTED_SYNC)
+                .build();
+        WorkManager.getInstance().enqueueUniqueWork(REQUESTED_SYNC, ExistingWorkPolicy.REPLACE,
+                request);
+    }
+}
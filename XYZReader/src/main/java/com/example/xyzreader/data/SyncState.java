@@ -0,0 +1,73 @@
+package com.example.xyzreader.data;
+
+/** Immutable snapshot of the feed sync, as published by {@link SyncCoordinator}. */
+public final class SyncState {
+    private final boolean mRequested;
+    private final boolean mRunning;
+    private final long mLastSuccessMillis;
+    private final int mLastRowsTouched;
+    private final boolean mLastFailed;
+
+    SyncState(boolean requested, boolean running, long lastSuccessMillis, int lastRowsTouched,
+            boolean lastFailed) {
+        mRequested = requested;
+        mRunning = running;
+        mLastSuccessMillis = lastSuccessMillis;
+        mLastRowsTouched = lastRowsTouched;
+        mLastFailed = lastFailed;
+    }
+
+    /**
+     * Whether a sync asked for through {@link SyncCoordinator#requestSync} is waiting to run,
+     * e.g. for a network, or running. Background syncs are not requested, unless a request
+     * joined them.
+     */
+    public boolean isRequested() {
+        return mRequested;
+    }
+
+    /** Whether any sync, requested or not, is talking to the server or writing items. */
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /** Time the last successful sync finished, or 0 if none has. */
+    public long getLastSuccessMillis() {
+        return mLastSuccessMillis;
+    }
+
+    /** Rows the last successful sync inserted, updated or deleted. */
+    public int getLastRowsTouched() {
+        return mLastRowsTouched;
+    }
+
+    /** Whether the last sync attempt failed, including one that will be retried. */
+    public boolean hasLastFailed() {
+        return mLastFailed;
+    }
+
+    SyncState withRequested(boolean requested) {
+        return new SyncState(requested, mRunning, mLastSuccessMillis, mLastRowsTouched,
+                mLastFailed);
+    }
+
+    SyncState withRunning(boolean running) {
+        return new SyncState(mRequested, running, mLastSuccessMillis, mLastRowsTouched,
+                mLastFailed);
+    }
+
+    SyncState withSuccess(long finishedMillis, int rowsTouched) {
+        return new SyncState(mRequested, mRunning, finishedMillis, rowsTouched, false);
+    }
+
+    SyncState withFailure() {
+        return new SyncState(mRequested, mRunning, mLastSuccessMillis, mLastRowsTouched, true);
+    }
+
+    @Override
+    public String toString() {
+        return "SyncState[requested=" + mRequested + ", running=" + mRunning
+                + ", lastSuccess=" + mLastSuccessMillis + ", lastRowsTouched=" + mLastRowsTouched
+                + ", lastFailed=" + mLastFailed + "]";
+    }
+}
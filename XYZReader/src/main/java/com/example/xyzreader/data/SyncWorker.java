@@ -0,0 +1,70 @@
+package com.example.xyzreader.data;
+
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.os.RemoteException;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a {@link FeedSync} for {@link SyncScheduler} and reports it to {@link SyncCoordinator}.
+ * Failures to reach the server are retried with backoff, a few times; everything else, such
+ * as a malformed feed, waits for the next scheduled run.
+ */
+public class SyncWorker extends Worker {
+    private static final String TAG = "SyncWorker";
+
+    /** Whether this runs for {@link SyncCoordinator#requestSync} rather than the schedule. */
+    private final boolean mRequested;
+    /** Set once the end of the sync is reported, which doWork and onStopped may both try. */
+    private final AtomicBoolean mReported = new AtomicBoolean();
+
+    public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+        mRequested = params.getTags().contains(SyncScheduler.REQUESTED_SYNC);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SyncCoordinator coordinator = SyncCoordinator.get(getApplicationContext());
+        coordinator.onSyncStarted(mRequested);
+        try {
+            SyncMetrics metrics = new FeedSync(getApplicationContext()).run();
+            if (mReported.compareAndSet(false, true)) {
+                coordinator.onSyncSucceeded(mRequested, metrics.getRowsTouched());
+            }
+            return Result.success();
+        } catch (IOException e) {
+            if (!SyncPolicy.isTransient(e)) {
+                Log.e(TAG, "Error reading content.", e);
+                return Result.failure();
+            }
+            Log.e(TAG, "Error fetching content.", e);
+            return coordinator.policy().shouldRetry(getRunAttemptCount() + 1)
+                    ? Result.retry() : Result.failure();
+        } catch (RuntimeException | RemoteException | OperationApplicationException e) {
+            Log.e(TAG, "Error updating content.", e);
+            return Result.failure();
+        } finally {
+            // Also reached by errors not caught above, which must not leave the sync running
+            if (mReported.compareAndSet(false, true)) {
+                coordinator.onSyncFailed(mRequested);
+            }
+        }
+    }
+
+    @Override
+    public void onStopped() {
+        super.onStopped();
+        if (mReported.compareAndSet(false, true)) {
+            SyncCoordinator.get(getApplicationContext()).onSyncStopped(mRequested);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.example.xyzreader.remote;
 
 import android.util.Log;
 
+import com.example.xyzreader.BuildConfig;
+
 import java.net.MalformedURLException;
 import java.net.URL;
 
@@ -12,7 +14,7 @@ public class Config {
     static {
         URL url = null;
         try {
-            url = new URL("https://go.udacity.com/xyz-reader-json" );
+            url = new URL(BuildConfig.FEED_URL);
         } catch (MalformedURLException ignored) {
             // TODO: throw a real error
             Log.e(TAG, "Please check your internet connection.");
@@ -0,0 +1,122 @@
+package com.example.xyzreader.remote;
+
+import android.content.SharedPreferences;
+import android.util.JsonReader;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import okhttp3.MediaType;
+import okhttp3.Response;
+
+/**
+ * Result of {@link RemoteEndpointUtil#fetchFeed}: either a feed body to stream, or a marker that
+ * the feed has not changed since the last committed fetch.
+ */
+public class FeedResponse implements Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final SharedPreferences mPrefs;
+    private final Response mResponse;
+    private final long mResponseMillis;
+    private CountingInputStream mBody;
+
+    FeedResponse(SharedPreferences prefs, Response response, long responseMillis) {
+        mPrefs = prefs;
+        mResponse = response;
+        mResponseMillis = responseMillis;
+    }
+
+    /** True if the server reported the feed unchanged; there is no body to read. */
+    public boolean isNotModified() {
+        return mResponse == null;
+    }
+
+    /** Whether the feed came from the HTTP cache without a request to the server. */
+    public boolean isFromCache() {
+        return mResponse != null && mResponse.networkResponse() == null;
+    }
+
+    /** Time from sending the request to receiving the response headers. */
+    public long getResponseMillis() {
+        return mResponseMillis;
+    }
+
+    /** Bytes of the body read so far through {@link #openJsonReader()}. */
+    public long getBytesRead() {
+        return mBody != null ? mBody.mCount : 0;
+    }
+
+    /**
+     * Opens the feed body as a pull parser, so it can be consumed one article at a time
+     * without holding the whole feed in memory.
+     */
+    public JsonReader openJsonReader() {
+        if (mResponse == null) {
+            throw new IllegalStateException("Feed was not modified, there is no body");
+        }
+        MediaType contentType = mResponse.body().contentType();
+        Charset charset = contentType != null ? contentType.charset(UTF_8) : UTF_8;
+        mBody = new CountingInputStream(mResponse.body().byteStream());
+        return new JsonReader(new InputStreamReader(mBody, charset));
+    }
+
+    /**
+     * Remembers this response's validators for the next conditional fetch. Call only once the
+     * body has been fully stored, so that a failed sync is retried with a full download.
+     */
+    public void commit() {
+        if (mResponse == null) {
+            return;
+        }
+        mPrefs.edit()
+                .putString(RemoteEndpointUtil.PREF_FEED_ETAG, mResponse.header("ETag"))
+                .putString(RemoteEndpointUtil.PREF_FEED_LAST_MODIFIED,
+                        mResponse.header("Last-Modified"))
+                .apply();
+    }
+
+    @Override
+    public void close() {
+        if (mResponse != null) {
+            mResponse.close();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long mCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                mCount += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            mCount += skipped;
+            return skipped;
+        }
+    }
+}
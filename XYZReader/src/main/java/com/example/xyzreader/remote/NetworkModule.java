@@ -0,0 +1,105 @@
+package com.example.xyzreader.remote;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import com.squareup.picasso.LruCache;
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.StatsSnapshot;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide network stack. The feed fetch and image loading share one connection pool and
+ * dispatcher, so connections (and their TLS sessions) opened for the feed are reused for the
+ * thumbnails and photos on the same host, and vice versa.
+ */
+public final class NetworkModule {
+    private static final String TAG = "NetworkModule";
+    private static final String HTTP_CACHE_DIR = "http";
+    private static final long HTTP_CACHE_SIZE = 10 * 1024 * 1024;
+    private static final String IMAGE_CACHE_DIR = "images";
+    private static final long IMAGE_CACHE_SIZE = 50 * 1024 * 1024;
+    /** Share of the app's heap budget that decoded bitmaps may hold on to. */
+    private static final int IMAGE_MEMORY_CACHE_DIVISOR = 8;
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final long CONNECT_TIMEOUT_SECONDS = 15;
+    private static final long READ_TIMEOUT_SECONDS = 30;
+    private static final long WRITE_TIMEOUT_SECONDS = 15;
+
+    private static NetworkModule sInstance;
+
+    private final OkHttpClient mClient;
+    private final OkHttpClient mImageClient;
+    private final Picasso mPicasso;
+
+    public static synchronized NetworkModule get(Context context) {
+        if (sInstance == null) {
+            sInstance = new NetworkModule(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private NetworkModule(Context context) {
+        // OkHttp negotiates HTTP/2 over ALPN where the server supports it and transparently
+        // requests and decodes gzip as long as no Accept-Encoding header is set by hand.
+        mClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES,
+                        TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .writeTimeout(WRITE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .cache(new Cache(new File(context.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE))
+                .build();
+
+        // Derived clients share the pool and dispatcher; images only get their own disk cache
+        // so they cannot evict the feed.
+        mImageClient = mClient.newBuilder()
+                .cache(new Cache(new File(context.getCacheDir(), IMAGE_CACHE_DIR), IMAGE_CACHE_SIZE))
+                .build();
+
+        mPicasso = new Picasso.Builder(context)
+                .downloader(new OkHttp3Downloader(mImageClient))
+                .memoryCache(new LruCache(imageMemoryCacheSize(context)))
+                .build();
+    }
+
+    private static int imageMemoryCacheSize(Context context) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClassMb = am != null ? am.getMemoryClass() : 16;
+        return memoryClassMb * 1024 * 1024 / IMAGE_MEMORY_CACHE_DIVISOR;
+    }
+
+    /** Client for API calls such as the items feed. */
+    public OkHttpClient client() {
+        return mClient;
+    }
+
+    /** Image loader backed by the shared connection pool. */
+    public Picasso picasso() {
+        return mPicasso;
+    }
+
+    /** Logs bitmap memory use, memory cache hit rate and decode sizes of the image loader. */
+    public void logImageStats() {
+        StatsSnapshot stats = mPicasso.getSnapshot();
+        long lookups = stats.cacheHits + stats.cacheMisses;
+        Log.i(TAG, "Images: " + stats.size / 1024 + "/" + stats.maxSize / 1024 + " KB in memory, "
+                + stats.cacheHits + "/" + lookups + " memory hits ("
+                + (lookups > 0 ? stats.cacheHits * 100 / lookups : 0) + "%), "
+                + stats.downloadCount + " downloads (" + stats.totalDownloadSize / 1024 + " KB), "
+                + "avg bitmap " + stats.averageOriginalBitmapSize / 1024 + " KB decoded, "
+                + stats.averageTransformedBitmapSize / 1024 + " KB transformed");
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.xyzreader.remote;
+
+import android.net.Uri;
+
+import com.squareup.picasso.Downloader;
+import com.squareup.picasso.NetworkPolicy;
+
+import java.io.IOException;
+
+import okhttp3.CacheControl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+
+/**
+ * Picasso {@link Downloader} on top of OkHttp 3, so images go through the shared
+ * {@link NetworkModule} client rather than Picasso's own {@code HttpURLConnection} stack.
+ */
+class OkHttp3Downloader implements Downloader {
+    private final OkHttpClient mClient;
+
+    OkHttp3Downloader(OkHttpClient client) {
+        mClient = client;
+    }
+
+    @Override
+    public Response load(Uri uri, int networkPolicy) throws IOException {
+        Request.Builder builder = new Request.Builder().url(uri.toString());
+        if (networkPolicy != 0) {
+            if (NetworkPolicy.isOfflineOnly(networkPolicy)) {
+                builder.cacheControl(CacheControl.FORCE_CACHE);
+            } else {
+                CacheControl.Builder cacheControl = new CacheControl.Builder();
+                if (!NetworkPolicy.shouldReadFromDiskCache(networkPolicy)) {
+                    cacheControl.noCache();
+                }
+                if (!NetworkPolicy.shouldWriteToDiskCache(networkPolicy)) {
+                    cacheControl.noStore();
+                }
+                builder.cacheControl(cacheControl.build());
+            }
+        }
+
+        okhttp3.Response response = mClient.newCall(builder.build()).execute();
+        int responseCode = response.code();
+        if (responseCode >= 300) {
+            response.close();
+            throw new ResponseException(responseCode + " " + response.message(), networkPolicy,
+                    responseCode);
+        }
+
+        ResponseBody body = response.body();
+        return new Response(body.byteStream(), response.cacheResponse() != null,
+                body.contentLength());
+    }
+
+    @Override
+    public void shutdown() {
+        // The client is shared with the rest of the app, so it is not torn down with Picasso.
+    }
+}
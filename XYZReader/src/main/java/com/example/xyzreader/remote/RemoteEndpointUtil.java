@@ -1,56 +1,87 @@
 package com.example.xyzreader.remote;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONTokener;
-
 import java.io.IOException;
-import java.net.URL;
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import okhttp3.OkHttpClient;
+import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.Response;
 
 public class RemoteEndpointUtil {
     private static final String TAG = "RemoteEndpointUtil";
 
+    static final String PREFS_NAME = "remote_endpoint";
+    static final String PREF_FEED_ETAG = "feed_etag";
+    static final String PREF_FEED_LAST_MODIFIED = "feed_last_modified";
+
+    private static final AtomicInteger sCacheHitCount = new AtomicInteger();
+    private static final AtomicInteger sCacheMissCount = new AtomicInteger();
+    private static final AtomicInteger sNotModifiedCount = new AtomicInteger();
+
     private RemoteEndpointUtil() {
     }
 
-    public static JSONArray fetchJsonArray() {
-        String itemsJson;
-        try {
-            itemsJson = fetchPlainText(Config.BASE_URL);
-        } catch (IOException e) {
-            Log.e(TAG, "Error fetching items JSON", e);
-            return null;
+    /**
+     * Fetches the items feed from {@code url}, normally {@link Config#BASE_URL}. When
+     * {@code conditional} is set, the validators saved by the last
+     * {@link FeedResponse#commit()} are sent as {@code If-None-Match}/{@code If-Modified-Since},
+     * and an unchanged feed comes back as a {@link FeedResponse#isNotModified() not modified}
+     * response without a body. The caller must close the returned response.
+     */
+    public static FeedResponse fetchFeed(Context context, HttpUrl url, boolean conditional)
+            throws IOException {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        Request.Builder builder = new Request.Builder().url(url);
+        if (conditional) {
+            String etag = prefs.getString(PREF_FEED_ETAG, null);
+            String lastModified = prefs.getString(PREF_FEED_LAST_MODIFIED, null);
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
         }
 
-        // Parse JSON
-        try {
-            JSONTokener tokener = new JSONTokener(itemsJson);
-            Object val = tokener.nextValue();
-            if (!(val instanceof JSONArray)) {
-                throw new JSONException("Expected JSONArray");
-            }
-            return (JSONArray) val;
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing items JSON", e);
+        Response response = NetworkModule.get(context).client().newCall(builder.build()).execute();
+        long responseMillis = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+        Log.d(TAG, "Fetched feed: " + response.code() + " in " + responseMillis + "ms");
+        if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            sNotModifiedCount.incrementAndGet();
+            response.close();
+            return new FeedResponse(prefs, null, responseMillis);
+        }
+        if (!response.isSuccessful()) {
+            response.close();
+            throw new IOException("Unexpected response fetching " + url + ": "
+                    + response.code());
         }
 
-        return null;
+        if (response.networkResponse() == null) {
+            sCacheHitCount.incrementAndGet();
+        } else {
+            sCacheMissCount.incrementAndGet();
+        }
+        return new FeedResponse(prefs, response, responseMillis);
     }
 
-    static String fetchPlainText(URL url) throws IOException {
-        OkHttpClient client = new OkHttpClient();
+    /** Number of feed fetches answered from the disk cache without touching the network. */
+    public static int getCacheHitCount() {
+        return sCacheHitCount.get();
+    }
 
-        Request request = new Request.Builder()
-                .url(url)
-                .build();
+    /** Number of feed fetches that downloaded a full response body. */
+    public static int getCacheMissCount() {
+        return sCacheMissCount.get();
+    }
 
-        Response response = client.newCall(request).execute();
-        return response.body().string();
+    /** Number of feed fetches the server answered with {@code 304 Not Modified}. */
+    public static int getNotModifiedCount() {
+        return sNotModifiedCount.get();
     }
 }
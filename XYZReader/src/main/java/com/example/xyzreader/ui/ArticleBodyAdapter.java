@@ -0,0 +1,75 @@
+package com.example.xyzreader.ui;
+
+import android.support.annotation.NonNull;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.widget.TextViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.text.method.LinkMovementMethod;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.example.xyzreader.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Shows the paragraphs of an article body as they come in from {@link ArticleBodyRenderer}. */
+class ArticleBodyAdapter extends RecyclerView.Adapter<ArticleBodyAdapter.ViewHolder> {
+
+    private final List<CharSequence> mParagraphs = new ArrayList<>();
+
+    void append(List<CharSequence> paragraphs) {
+        int start = mParagraphs.size();
+        mParagraphs.addAll(paragraphs);
+        notifyItemRangeInserted(start, paragraphs.size());
+    }
+
+    void clear() {
+        mParagraphs.clear();
+        notifyDataSetChanged();
+    }
+
+    /** Inflates a paragraph view, whose text metrics paragraphs have to be measured with. */
+    static TextView createParagraphView(ViewGroup parent) {
+        TextView view = (TextView) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.article_body_paragraph, parent, false);
+        view.setMovementMethod(LinkMovementMethod.getInstance());
+        return view;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return new ViewHolder(createParagraphView(parent));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        CharSequence paragraph = mParagraphs.get(position);
+        if (paragraph instanceof PrecomputedTextCompat) {
+            try {
+                TextViewCompat.setPrecomputedText(holder.textView, (PrecomputedTextCompat) paragraph);
+                return;
+            } catch (IllegalArgumentException e) {
+                // Measured for different text metrics; fall back to a regular layout
+            }
+        }
+        holder.textView.setText(paragraph);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mParagraphs.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+
+        ViewHolder(View view) {
+            super(view);
+            textView = (TextView) view;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.xyzreader.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.text.Html;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.ImageSpan;
+import android.text.style.URLSpan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Renders an article body into paragraphs of display text in the background and hands them to
+ * the main thread in chunks: first about a screenful, then the rest. Each chunk is a task of
+ * its own on a shared executor, so a body that starts rendering never waits for more than one
+ * chunk of another, however long that other body is.
+ */
+class ArticleBodyRenderer {
+    /** Characters in the first chunk, enough to fill the screen below the app bar. */
+    private static final int FIRST_CHUNK_LENGTH = 2000;
+    private static final int CHUNK_LENGTH = 16000;
+
+    private static final Executor sExecutor = Executors.newSingleThreadExecutor();
+
+    interface Callback {
+        /** Called on the main thread with the next paragraphs; {@code done} with the last. */
+        void onParagraphs(List<CharSequence> paragraphs, boolean done);
+    }
+
+    private final ParagraphSplitter mSplitter;
+    private final PrecomputedTextCompat.Params mTextParams;
+    private final Callback mCallback;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean mCancelled;
+
+    private ArticleBodyRenderer(String body, PrecomputedTextCompat.Params textParams,
+            Callback callback) {
+        mSplitter = new ParagraphSplitter(body);
+        mTextParams = textParams;
+        mCallback = callback;
+    }
+
+    /** Starts rendering {@code body} with the text metrics of the views that will show it. */
+    static ArticleBodyRenderer render(String body, PrecomputedTextCompat.Params textParams,
+            Callback callback) {
+        ArticleBodyRenderer renderer = new ArticleBodyRenderer(body, textParams, callback);
+        renderer.renderChunk(FIRST_CHUNK_LENGTH);
+        return renderer;
+    }
+
+    /** Stops rendering; no more callbacks follow. Call on the main thread. */
+    void cancel() {
+        mCancelled = true;
+    }
+
+    private void renderChunk(final int length) {
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mCancelled) {
+                    return;
+                }
+                final List<CharSequence> paragraphs = new ArrayList<>();
+                int rendered = 0;
+                String html = null;
+                while (rendered < length && (html = mSplitter.next()) != null) {
+                    CharSequence paragraph = renderParagraph(html);
+                    if (paragraph.length() > 0) {
+                        paragraphs.add(paragraph);
+                        rendered += paragraph.length();
+                    }
+                }
+                final boolean done = html == null;
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!mCancelled) {
+                            mCallback.onParagraphs(paragraphs, done);
+                        }
+                    }
+                });
+                if (!done) {
+                    renderChunk(CHUNK_LENGTH);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the text of {@code body} as plain paragraphs, as rendered but without styling,
+     * cut off after {@code maxLength}. Only the paragraphs up to the cut are converted.
+     */
+    static String toPlainText(String body, int maxLength) {
+        StringBuilder text = new StringBuilder();
+        ParagraphSplitter splitter = new ParagraphSplitter(body);
+        String html;
+        while (text.length() < maxLength && (html = splitter.next()) != null) {
+            SpannableStringBuilder paragraph = sanitize(Html.fromHtml(html));
+            if (paragraph.length() == 0) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append("\n\n");
+            }
+            text.append(paragraph);
+        }
+        if (text.length() > maxLength) {
+            // Not between the halves of a surrogate pair
+            text.setLength(Character.isHighSurrogate(text.charAt(maxLength - 1))
+                    ? maxLength - 1 : maxLength);
+        }
+        return text.toString();
+    }
+
+    private CharSequence renderParagraph(String html) {
+        SpannableStringBuilder text = sanitize(Html.fromHtml(html));
+        return PrecomputedTextCompat.create(text, mTextParams);
+    }
+
+    /**
+     * Drops what the body should not show: images, since nothing loads them, links other than
+     * to web pages, and the whitespace {@link Html#fromHtml} leaves around a paragraph.
+     */
+    private static SpannableStringBuilder sanitize(Spanned html) {
+        SpannableStringBuilder text = new SpannableStringBuilder(html);
+        ImageSpan[] images = text.getSpans(0, text.length(), ImageSpan.class);
+        for (int i = images.length - 1; i >= 0; i--) {
+            int start = text.getSpanStart(images[i]);
+            int end = text.getSpanEnd(images[i]);
+            text.removeSpan(images[i]);
+            text.delete(start, end);
+        }
+        for (URLSpan link : text.getSpans(0, text.length(), URLSpan.class)) {
+            String url = link.getURL();
+            if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+                text.removeSpan(link);
+            }
+        }
+        int end = text.length();
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        text.delete(end, text.length());
+        int start = 0;
+        while (start < text.length() && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        text.delete(0, start);
+        return text;
+    }
+}
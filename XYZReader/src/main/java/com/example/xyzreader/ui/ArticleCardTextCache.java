@@ -0,0 +1,177 @@
+package com.example.xyzreader.ui;
+
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.util.LruCache;
+import android.text.Html;
+import android.text.format.DateUtils;
+
+import com.example.xyzreader.data.ArticleListWindow;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the title and subtitle text of article cards on a background thread, ahead of binding,
+ * and keeps the results in an LRU keyed by article id, checked against the item's content.
+ * Once the text metrics of the card views are known, the text is also pre-measured with
+ * {@link PrecomputedTextCompat}, so binding a card only has to assign ready-made text.
+ * Subtitles show the publish time relative to now, so text is only reused within the
+ * {@link #TIME_BUCKET_MILLIS} period it was built in.
+ */
+class ArticleCardTextCache {
+    private static final int MAX_ENTRIES = 300;
+    // Most time functions can only handle 1902 - 2037
+    private static final long START_OF_EPOCH = new GregorianCalendar(2,1,1).getTimeInMillis();
+    /** How stale a relative time may get; it is shown in hours, so a fraction of one. */
+    private static final long TIME_BUCKET_MILLIS = 10 * DateUtils.MINUTE_IN_MILLIS;
+
+    private static final Executor sExecutor = Executors.newSingleThreadExecutor();
+
+    private final LruCache<Long, CardText> mCache = new LruCache<>(MAX_ENTRIES);
+    private volatile PrecomputedTextCompat.Params mTitleParams;
+    private volatile PrecomputedTextCompat.Params mSubtitleParams;
+    /** End of the range already handed to the background thread; main thread only. */
+    private int mPrefetchEnd;
+    /** Time bucket {@link #mPrefetchEnd} was prefetched in; main thread only. */
+    private long mPrefetchBucket;
+
+    static class CardText {
+        final CharSequence title;
+        final CharSequence subtitle;
+        /** Content the text was built from, to tell whether it is still current. */
+        final long contentHash;
+        final String snippet;
+        /** Time bucket the text was built in, as its relative time is only right for that. */
+        final long timeBucket;
+
+        CardText(CharSequence title, CharSequence subtitle, long contentHash, String snippet,
+                long timeBucket) {
+            this.title = title;
+            this.subtitle = subtitle;
+            this.contentHash = contentHash;
+            this.snippet = snippet;
+            this.timeBucket = timeBucket;
+        }
+
+        boolean isFor(ArticleListWindow window, int position, long timeBucket) {
+            String current = window.getSnippet(position);
+            return contentHash == window.getContentHash(position)
+                    && this.timeBucket == timeBucket
+                    && (snippet == null ? current == null : snippet.equals(current));
+        }
+    }
+
+    boolean hasTextParams() {
+        return mTitleParams != null;
+    }
+
+    /** Sets the text metrics of the card views, enabling pre-measured text. */
+    void setTextParams(PrecomputedTextCompat.Params title, PrecomputedTextCompat.Params subtitle) {
+        mSubtitleParams = subtitle;
+        mTitleParams = title;
+    }
+
+    /**
+     * Returns the cached text for the article at {@code position}, building it on the calling
+     * thread on a miss.
+     */
+    CardText get(ArticleListWindow window, int position) {
+        long id = window.getId(position);
+        long now = System.currentTimeMillis();
+        CardText text = mCache.get(id);
+        if (text == null || !text.isFor(window, position, timeBucket(now))) {
+            text = build(window, position, false, now);
+            mCache.put(id, text);
+        }
+        return text;
+    }
+
+    /**
+     * Builds and pre-measures the text of {@code count} items from {@code start} in the
+     * background. Ranges already scheduled since the last {@link #clear()} are skipped, unless
+     * their text has aged out since.
+     */
+    void prefetch(final ArticleListWindow window, int start, int count) {
+        long bucket = timeBucket(System.currentTimeMillis());
+        if (bucket != mPrefetchBucket) {
+            mPrefetchBucket = bucket;
+            mPrefetchEnd = 0;
+        }
+        final int end = Math.min(window.size(), start + count);
+        final int from = Math.max(start, mPrefetchEnd);
+        if (from >= end) {
+            return;
+        }
+        mPrefetchEnd = end;
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long now = System.currentTimeMillis();
+                for (int i = from; i < end; i++) {
+                    long id = window.getId(i);
+                    CardText cached = mCache.get(id);
+                    if (cached == null || !cached.isFor(window, i, timeBucket(now))
+                            || !(cached.title instanceof PrecomputedTextCompat)) {
+                        mCache.put(id, build(window, i, true, now));
+                    }
+                }
+            }
+        });
+    }
+
+    void clear() {
+        mCache.evictAll();
+        mPrefetchEnd = 0;
+    }
+
+    /** Forgets which positions were prefetched, after items moved; cached text stays. */
+    void resetPrefetch() {
+        mPrefetchEnd = 0;
+    }
+
+    private static long timeBucket(long millis) {
+        return millis / TIME_BUCKET_MILLIS;
+    }
+
+    private CardText build(ArticleListWindow window, int position, boolean precompute,
+            long now) {
+        CharSequence title = window.getTitle(position);
+        CharSequence subtitle = buildSubtitle(window, position, now);
+        PrecomputedTextCompat.Params titleParams = mTitleParams;
+        PrecomputedTextCompat.Params subtitleParams = mSubtitleParams;
+        if (precompute && titleParams != null && subtitleParams != null) {
+            title = PrecomputedTextCompat.create(title, titleParams);
+            subtitle = PrecomputedTextCompat.create(subtitle, subtitleParams);
+        }
+        return new CardText(title, subtitle, window.getContentHash(position),
+                window.getSnippet(position), timeBucket(now));
+    }
+
+    private static CharSequence buildSubtitle(ArticleListWindow window, int position,
+            long now) {
+        String snippet = window.getSnippet(position);
+        if (snippet != null) {
+            return Html.fromHtml(snippet);
+        }
+        String author = window.getAuthor(position);
+        long publishedDate = window.getPublishedDate(position);
+        if (publishedDate >= START_OF_EPOCH) {
+            return Html.fromHtml(
+                    DateUtils.getRelativeTimeSpanString(
+                            publishedDate,
+                            now, DateUtils.HOUR_IN_MILLIS,
+                            DateUtils.FORMAT_ABBREV_ALL).toString()
+                            + "<br/>" + " by "
+                            + author);
+        } else {
+            // Use default locale format
+            return Html.fromHtml(
+                    new SimpleDateFormat().format(new Date(publishedDate))
+                            + "<br/>" + " by "
+                            + author);
+        }
+    }
+}
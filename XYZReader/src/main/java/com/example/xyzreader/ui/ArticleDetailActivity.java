@@ -1,6 +1,5 @@
 package com.example.xyzreader.ui;
 
-import android.database.Cursor;
 import android.os.Build;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
@@ -13,15 +12,20 @@ import android.support.v4.view.ViewPager;
 import android.support.v7.app.AppCompatActivity;
 
 import com.example.xyzreader.R;
-import com.example.xyzreader.data.ArticleLoader;
+import com.example.xyzreader.data.ArticleCache;
+import com.example.xyzreader.data.ArticleIndex;
+import com.example.xyzreader.data.ArticleIndexLoader;
 import com.example.xyzreader.data.ItemsContract;
 
 /**
  * An activity representing a single Article detail screen, letting you swipe between articles.
  */
-public class ArticleDetailActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<Cursor> {
+public class ArticleDetailActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<ArticleIndex> {
 
-    private Cursor mCursor;
+    /** Number of articles on each side of the current one kept loaded in memory. */
+    private static final int PREFETCH_RADIUS = 2;
+
+    private ArticleIndex mIndex;
     private long mStartId;
 
     private ViewPager mPager;
@@ -52,15 +56,13 @@ public class ArticleDetailActivity extends AppCompatActivity implements LoaderMa
         mPager = findViewById(R.id.pager);
         mPager.setAdapter(mPagerAdapter);
         mPager.addOnPageChangeListener(new ViewPager.SimpleOnPageChangeListener() {
-            @Override
-            public void onPageScrollStateChanged(int state) {
-                super.onPageScrollStateChanged(state);
-            }
-
             @Override
             public void onPageSelected(int position) {
-                if (mCursor != null) {
-                    mCursor.moveToPosition(position);
+                if (mIndex != null) {
+                    // Follow the current article, so reloads and restarts come back to it
+                    mStartId = mIndex.getId(position);
+                    ArticleCache.get(ArticleDetailActivity.this)
+                            .prefetch(mIndex, position, PREFETCH_RADIUS);
                 }
             }
         });
@@ -70,32 +72,25 @@ public class ArticleDetailActivity extends AppCompatActivity implements LoaderMa
 
     @NonNull
     @Override
-    public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        return ArticleLoader.newAllArticlesInstance(this);
+    public Loader<ArticleIndex> onCreateLoader(int id, Bundle args) {
+        return new ArticleIndexLoader(this);
     }
 
     @Override
-    public void onLoadFinished(@NonNull Loader<Cursor> cursorLoader, Cursor cursor) {
-        mCursor = cursor;
+    public void onLoadFinished(@NonNull Loader<ArticleIndex> loader, ArticleIndex index) {
+        mIndex = index;
+        mPagerAdapter.notifyDataSetChanged();
         // Select the start ID
-        if (mStartId > 0) {
-            mCursor.moveToFirst();
-            while (!mCursor.isAfterLast()) {
-                if (mCursor.getLong(ArticleLoader.Query._ID) == mStartId) {
-                    final int position = mCursor.getPosition();
-                    mCursor = cursor;
-                    mPagerAdapter.notifyDataSetChanged();
-                    mPager.setCurrentItem(position, false);
-                    break;
-                }
-                mCursor.moveToNext();
-            }
+        final int position = mStartId > 0 ? index.indexOf(mStartId) : -1;
+        if (position >= 0) {
+            ArticleCache.get(this).prefetch(index, position, PREFETCH_RADIUS);
+            mPager.setCurrentItem(position, false);
         }
     }
 
     @Override
-    public void onLoaderReset(@NonNull Loader<Cursor> cursorLoader) {
-        mCursor = null;
+    public void onLoaderReset(@NonNull Loader<ArticleIndex> loader) {
+        mIndex = null;
         mPagerAdapter.notifyDataSetChanged();
     }
 
@@ -106,13 +101,12 @@ public class ArticleDetailActivity extends AppCompatActivity implements LoaderMa
 
         @Override
         public Fragment getItem(int position) {
-            mCursor.moveToPosition(position);
-            return ArticleDetailFragment.newInstance(mCursor.getLong(ArticleLoader.Query._ID));
+            return ArticleDetailFragment.newInstance(mIndex.getId(position));
         }
 
         @Override
         public int getCount() {
-            return (mCursor != null) ? mCursor.getCount() : 0;
+            return (mIndex != null) ? mIndex.size() : 0;
         }
     }
 
@@ -1,7 +1,6 @@
 package com.example.xyzreader.ui;
 
 import android.content.Intent;
-import android.database.Cursor;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -11,6 +10,10 @@ import android.support.v4.app.Fragment;
 import android.support.v4.app.LoaderManager;
 import android.support.v4.app.ShareCompat;
 import android.support.v4.content.Loader;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.widget.TextViewCompat;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.Toolbar;
 import android.text.Html;
 import android.text.Spanned;
@@ -22,49 +25,52 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
-import android.webkit.WebSettings;
-import android.webkit.WebView;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import com.example.xyzreader.R;
-import com.example.xyzreader.data.ArticleLoader;
-import com.squareup.picasso.Picasso;
+import com.example.xyzreader.data.Article;
+import com.example.xyzreader.data.ArticleDetailLoader;
+import com.example.xyzreader.remote.NetworkModule;
 
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 
 /**
  * A fragment representing a single Article detail screen. This fragment is
  * either contained in a {@link ArticleListActivity} in two-pane mode (on
  * tablets) or a {@link ArticleDetailActivity} on handsets.
  */
-public class ArticleDetailFragment extends Fragment implements LoaderManager.LoaderCallbacks<Cursor> {
+public class ArticleDetailFragment extends Fragment implements LoaderManager.LoaderCallbacks<Article> {
 
     private final int DETAIL_LOADER_ID = 0;
     private final String TAG = "ArticleDetailFragment";
     public static final String ARG_ITEM_ID = "item_id";
+    /** Keeps shared text well below the limit of what an intent can carry. */
+    private static final int MAX_SHARED_BODY_LENGTH = 100000;
 
     private long mItemId;
-    private Cursor mCursor;
+    private Article mArticle;
     private View mRootView;
 
-    private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.sss");
     // Use default locale format
     private SimpleDateFormat outputFormat = new SimpleDateFormat();
     // Most time functions can only handle 1902 - 2037
-    private GregorianCalendar START_OF_EPOCH = new GregorianCalendar(2,1,1);
-    private String mBodyText;
+    private static final long START_OF_EPOCH = new GregorianCalendar(2,1,1).getTimeInMillis();
     private String mArticleTitle;
     private Spanned mAuthorName;
     private Toolbar mToolbar;
     private AppBarLayout mAppBar;
     private CollapsingToolbarLayout mCollapsingToolbar;
     private ProgressBar mLoadingCircle;
-    private WebView bodyView;
+    private RecyclerView bodyView;
+    private ArticleBodyAdapter mBodyAdapter;
+    private ArticleBodyRenderer mBodyRenderer;
+    /** The article whose body is rendered into {@link #mBodyAdapter}. */
+    private Article mRenderedArticle;
     private TextView titleView;
     private TextView bylineView;
     private ImageView mPhotoView;
@@ -115,14 +121,28 @@ public class ArticleDetailFragment extends Fragment implements LoaderManager.Loa
             public void onClick(View view) {
                 startActivity(Intent.createChooser(ShareCompat.IntentBuilder.from(getActivity())
                         .setType("text/plain")
-                        .setText(generateSharedText(mArticleTitle, mAuthorName, mBodyText))
+                        .setText(generateSharedText(mArticleTitle, mAuthorName,
+                                mArticle != null ? ArticleBodyRenderer.toPlainText(
+                                        mArticle.getBody(), MAX_SHARED_BODY_LENGTH) : null))
                         .getIntent(), getString(R.string.action_share)));
             }
         });
 
+        mBodyAdapter = new ArticleBodyAdapter();
+        RecyclerView body = mRootView.findViewById(R.id.article_body);
+        body.setLayoutManager(new LinearLayoutManager(getActivity()));
+        body.setAdapter(mBodyAdapter);
+
         return mRootView;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        cancelBodyRendering();
+        mRenderedArticle = null;
+    }
+
 
     /**
      * Generates a properly formatted string of text on the selected article for sharing
@@ -168,17 +188,6 @@ public class ArticleDetailFragment extends Fragment implements LoaderManager.Loa
         super.onViewCreated(view, savedInstanceState);
     }
 
-    private Date parsePublishedDate() {
-        try {
-            String date = mCursor.getString(ArticleLoader.Query.PUBLISHED_DATE);
-            return dateFormat.parse(date);
-        } catch (ParseException ex) {
-            Log.e(TAG, ex.getMessage());
-            Log.i(TAG, "passing today's date");
-            return new Date();
-        }
-    }
-
     private void bindViews() {
         if (mRootView == null) {
             return;
@@ -196,36 +205,31 @@ public class ArticleDetailFragment extends Fragment implements LoaderManager.Loa
         mLoadingCircle.setVisibility(View.VISIBLE);
         bylineView.setMovementMethod(new LinkMovementMethod());
 
-        if (getResources().getBoolean(R.bool.is_sw600)) {
-            WebSettings webSettings = bodyView.getSettings();
-            webSettings.setDefaultFontSize(22);
-        }
-
-        if (mCursor != null) {
+        if (mArticle != null) {
             mRootView.setVisibility(View.VISIBLE);
-            mArticleTitle = mCursor.getString(ArticleLoader.Query.TITLE);
+            mArticleTitle = mArticle.getTitle();
             titleView.setText(mArticleTitle);
-            Date publishedDate = parsePublishedDate();
+            long publishedDate = mArticle.getPublishedDate();
             // If it's a tablet layout then change the author color to grey
-            if (!publishedDate.before(START_OF_EPOCH.getTime())) {
+            if (publishedDate >= START_OF_EPOCH) {
                 if (getResources().getBoolean(R.bool.is_sw600)) {
                     mAuthorName = Html.fromHtml(
                             DateUtils.getRelativeTimeSpanString(
-                                    publishedDate.getTime(),
+                                    publishedDate,
                                     System.currentTimeMillis(), DateUtils.HOUR_IN_MILLIS,
                                     DateUtils.FORMAT_ABBREV_ALL).toString()
                                     + " by <font color='#\n" +
                                     "A6CACC'>"
-                                    + mCursor.getString(ArticleLoader.Query.AUTHOR)
+                                    + mArticle.getAuthor()
                                     + "</font>");
                 } else {
                     mAuthorName = Html.fromHtml(
                             DateUtils.getRelativeTimeSpanString(
-                                    publishedDate.getTime(),
+                                    publishedDate,
                                     System.currentTimeMillis(), DateUtils.HOUR_IN_MILLIS,
                                     DateUtils.FORMAT_ABBREV_ALL).toString()
                                     + " by <font color='#ffffff'>"
-                                    + mCursor.getString(ArticleLoader.Query.AUTHOR)
+                                    + mArticle.getAuthor()
                                     + "</font>");
                 }
                 bylineView.setText(mAuthorName);
@@ -233,18 +237,19 @@ public class ArticleDetailFragment extends Fragment implements LoaderManager.Loa
             } else {
                 // If date is before 1902, just show the string
                 mAuthorName = Html.fromHtml(
-                        outputFormat.format(publishedDate) + " by <font color='#ffffff'>"
-                                + mCursor.getString(ArticleLoader.Query.AUTHOR)
+                        outputFormat.format(new Date(publishedDate)) + " by <font color='#ffffff'>"
+                                + mArticle.getAuthor()
                                 + "</font>");
                 bylineView.setText(mAuthorName);
 
             }
 
-            mBodyText = Html.fromHtml(mCursor.getString(ArticleLoader.Query.BODY)).toString();
-            bodyView.loadData(mBodyText, "text/html", "UTF-8");
+            renderBody();
 
-            Picasso.with(getContext())
-                    .load(mCursor.getString(ArticleLoader.Query.PHOTO_URL))
+            NetworkModule.get(getContext()).picasso()
+                    .load(mArticle.getPhotoUrl())
+                    .fit()
+                    .centerCrop()
                     .into(mPhotoView);
         } else {
             mRootView.setVisibility(View.GONE);
@@ -254,15 +259,50 @@ public class ArticleDetailFragment extends Fragment implements LoaderManager.Loa
     }
 
 
+    /**
+     * Renders the article body into the body list in the background, a screenful first, unless
+     * it is already shown.
+     */
+    private void renderBody() {
+        if (mArticle == mRenderedArticle) {
+            return;
+        }
+        cancelBodyRendering();
+        mBodyAdapter.clear();
+        mRenderedArticle = mArticle;
+        PrecomputedTextCompat.Params textParams = TextViewCompat.getTextMetricsParams(
+                ArticleBodyAdapter.createParagraphView(bodyView));
+        mBodyRenderer = ArticleBodyRenderer.render(mArticle.getBody(), textParams,
+                new ArticleBodyRenderer.Callback() {
+                    @Override
+                    public void onParagraphs(List<CharSequence> paragraphs, boolean done) {
+                        mBodyAdapter.append(paragraphs);
+                        if (done) {
+                            mBodyRenderer = null;
+                        }
+                    }
+                });
+    }
+
+    private void cancelBodyRendering() {
+        if (mBodyRenderer != null) {
+            mBodyRenderer.cancel();
+            mBodyRenderer = null;
+        }
+    }
+
     @NonNull
     @Override
-    public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        return ArticleLoader.newInstanceForItemId(getActivity(), mItemId);
+    public Loader<Article> onCreateLoader(int id, Bundle args) {
+        return new ArticleDetailLoader(getActivity(), mItemId);
     }
 
     @Override
-    public void onLoadFinished(@NonNull Loader<Cursor> loader, Cursor data) {
-        if (data == null || data.isClosed() || !data.moveToFirst()) return;
+    public void onLoadFinished(@NonNull Loader<Article> loader, Article data) {
+        if (data == null) {
+            Log.e(TAG, "Error reading item detail");
+            return;
+        }
 
         if (mToolbar != null) {
             mToolbar.setNavigationIcon(R.drawable.ic_arrow_back);
@@ -274,13 +314,7 @@ public class ArticleDetailFragment extends Fragment implements LoaderManager.Loa
             });
         }
 
-        mCursor = data;
-
-        if (mCursor != null && !mCursor.moveToFirst()) {
-            Log.e(TAG, "Error reading item detail cursor");
-            mCursor.close();
-            mCursor = null;
-        }
+        mArticle = data;
         mLoadingCircle.setVisibility(View.GONE);
 
         bindViews();
@@ -302,7 +336,7 @@ public class ArticleDetailFragment extends Fragment implements LoaderManager.Loa
     }
 
     @Override
-    public void onLoaderReset(@NonNull Loader<Cursor> loader) {
-        mCursor = null;
+    public void onLoaderReset(@NonNull Loader<Article> loader) {
+        mArticle = null;
     }
 }
@@ -1,30 +1,33 @@
 package com.example.xyzreader.ui;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
-import android.database.Cursor;
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.v4.app.LoaderManager;
 import android.support.v4.content.Loader;
 import android.support.v4.widget.SwipeRefreshLayout;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.support.v7.widget.Toolbar;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.animation.AnimationUtils;
 import android.view.animation.LayoutAnimationController;
 
+import com.example.xyzreader.BuildConfig;
 import com.example.xyzreader.R;
-import com.example.xyzreader.data.ArticleLoader;
+import com.example.xyzreader.data.ArticleListLoader;
+import com.example.xyzreader.data.ArticleListWindow;
 import com.example.xyzreader.data.ItemsContract;
-import com.example.xyzreader.data.UpdaterService;
+import com.example.xyzreader.data.QueryProfiler;
+import com.example.xyzreader.data.SyncCoordinator;
+import com.example.xyzreader.data.SyncScheduler;
+import com.example.xyzreader.data.SyncState;
+import com.example.xyzreader.remote.NetworkModule;
 
 
 /**
@@ -33,14 +36,22 @@ import com.example.xyzreader.data.UpdaterService;
  * touched, lead to a {@link ArticleDetailActivity} representing item details. On tablets, the
  * activity presents a grid of items as cards.
  */
-public class ArticleListActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<Cursor>,
-        SwipeRefreshLayout.OnRefreshListener, ArticleListAdapter.ItemClickListener {
+public class ArticleListActivity extends AppCompatActivity
+        implements LoaderManager.LoaderCallbacks<ArticleListWindow>,
+        SwipeRefreshLayout.OnRefreshListener, ArticleListAdapter.ItemClickListener,
+        ArticleListAdapter.LoadMoreListener, SyncCoordinator.Listener {
 
     private static final int ARTICLE_LIST_LOADER_ID = 1;
+    private static final String ARG_SEARCH_QUERY = "search_query";
+    private static final String SEARCH_QUERY_SAV = "search_query_sav";
     private Toolbar mToolbar;
     private SwipeRefreshLayout mSwipeRefreshLayout;
     private RecyclerView mRecyclerView;
     private ArticleListAdapter mAdapter;
+    /** Search text whose results are shown, or null to show all articles. */
+    private String mSearchQuery;
+    /** Whether the next window loaded is unrelated to the one shown, e.g. another search. */
+    private boolean mReplaceOnLoad = true;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,13 +62,6 @@ public class ArticleListActivity extends AppCompatActivity implements LoaderMana
         mRecyclerView = findViewById(R.id.recycler_view);
         mToolbar = findViewById(R.id.toolbar);
 
-        new Handler().postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                mRecyclerView.setVisibility(View.VISIBLE);
-            }
-        }, 3000);
-
         if (mToolbar != null) {
             setSupportActionBar(mToolbar);
             if (getSupportActionBar() != null) getSupportActionBar().setDisplayShowTitleEnabled(false);
@@ -67,6 +71,7 @@ public class ArticleListActivity extends AppCompatActivity implements LoaderMana
         mAdapter.setHasStableIds(true);
         mRecyclerView.setAdapter(mAdapter);
         mAdapter.setClickListener(this);
+        mAdapter.setLoadMoreListener(this);
 
         int columnCount = getResources().getInteger(R.integer.list_column_count);
         if (getResources().getBoolean(R.bool.is_landscape)) {
@@ -78,21 +83,104 @@ public class ArticleListActivity extends AppCompatActivity implements LoaderMana
         mRecyclerView.setLayoutManager(sglm);
 
 
-        if (savedInstanceState == null) {
-            refresh();
+        if (savedInstanceState != null) {
+            mSearchQuery = savedInstanceState.getString(SEARCH_QUERY_SAV);
         }
 
-        getSupportLoaderManager().initLoader(ARTICLE_LIST_LOADER_ID, null, this);
+        // The stored articles are shown as soon as they are read; syncing waits for them
+        getSupportLoaderManager().initLoader(ARTICLE_LIST_LOADER_ID, loaderArgs(), this);
+        final boolean requestSync = savedInstanceState == null;
+        mRecyclerView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    private boolean mSyncPosted;
+
+                    @Override
+                    public boolean onPreDraw() {
+                        if (!mSyncPosted) {
+                            mSyncPosted = true;
+                            // Runs after this frame has been drawn
+                            mRecyclerView.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    startSync(requestSync);
+                                }
+                            });
+                        }
+                        if (mRecyclerView.getChildCount() > 0) {
+                            mRecyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                            StartupTrace.contentDrawn(ArticleListActivity.this);
+                        }
+                        return true;
+                    }
+                });
 
         mSwipeRefreshLayout.setOnRefreshListener(this);
     }
 
+    private void startSync(boolean requestSync) {
+        SyncScheduler.schedulePeriodicSync();
+        if (requestSync) {
+            // Usually a no-op, as the periodic sync keeps the items fresh
+            SyncCoordinator.get(this).requestSync(false);
+        }
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main, menu);
+
+        MenuItem searchItem = menu.findItem(R.id.search);
+        final SearchView searchView = (SearchView) searchItem.getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        if (mSearchQuery != null) {
+            searchItem.expandActionView();
+            searchView.setQuery(mSearchQuery, false);
+            searchView.clearFocus();
+        }
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                search(query);
+                searchView.clearFocus();
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                return false;
+            }
+        });
+        searchItem.setOnActionExpandListener(new MenuItem.OnActionExpandListener() {
+            @Override
+            public boolean onMenuItemActionExpand(MenuItem item) {
+                return true;
+            }
+
+            @Override
+            public boolean onMenuItemActionCollapse(MenuItem item) {
+                search(null);
+                return true;
+            }
+        });
         return true;
     }
 
+    /** Shows the articles matching {@code query}, or all articles if it is null. */
+    private void search(String query) {
+        if (query != null ? query.equals(mSearchQuery) : mSearchQuery == null) {
+            return;
+        }
+        mSearchQuery = query;
+        mReplaceOnLoad = true;
+        getSupportLoaderManager().restartLoader(ARTICLE_LIST_LOADER_ID, loaderArgs(), this);
+    }
+
+    private Bundle loaderArgs() {
+        Bundle args = new Bundle();
+        args.putString(ARG_SEARCH_QUERY, mSearchQuery);
+        return args;
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         switch (item.getItemId())
@@ -107,8 +195,8 @@ public class ArticleListActivity extends AppCompatActivity implements LoaderMana
     }
 
     private void refresh() {
-        getSupportLoaderManager().restartLoader(ARTICLE_LIST_LOADER_ID, null, this);
-        startService(new Intent(this, UpdaterService.class));
+        // The list reloads by itself when the sync changes items
+        SyncCoordinator.get(this).requestSync(true);
     }
 
 
@@ -120,31 +208,30 @@ public class ArticleListActivity extends AppCompatActivity implements LoaderMana
                 R.anim.layout_animation_article_list);
 
         mRecyclerView.setLayoutAnimation(controller);
-        mRecyclerView.getAdapter().notifyDataSetChanged();
         mRecyclerView.scheduleLayoutAnimation();
     }
 
     @Override
     protected void onStart() {
         super.onStart();
-        registerReceiver(mRefreshingReceiver,
-                new IntentFilter(UpdaterService.BROADCAST_ACTION_STATE_CHANGE));
+        SyncCoordinator.get(this).addListener(this);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        unregisterReceiver(mRefreshingReceiver);
+        SyncCoordinator.get(this).removeListener(this);
+        if (BuildConfig.DEBUG) {
+            NetworkModule.get(this).logImageStats();
+            QueryProfiler.logStats();
+        }
     }
 
-    private BroadcastReceiver mRefreshingReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            if (UpdaterService.BROADCAST_ACTION_STATE_CHANGE.equals(intent.getAction())) {
-                updateRefreshingUI(intent.getBooleanExtra(UpdaterService.EXTRA_REFRESHING, false));
-            }
-        }
-    };
+    @Override
+    public void onSyncStateChanged(SyncState state) {
+        // Not while a request waits for a network, which may take indefinitely
+        updateRefreshingUI(state.isRunning());
+    }
 
     private void updateRefreshingUI(boolean isRefreshing) {
         mSwipeRefreshLayout.setRefreshing(isRefreshing);
@@ -152,23 +239,36 @@ public class ArticleListActivity extends AppCompatActivity implements LoaderMana
 
     @NonNull
     @Override
-    public Loader<Cursor> onCreateLoader(int i, Bundle bundle) {
-        return ArticleLoader.newAllArticlesInstance(this);
+    public Loader<ArticleListWindow> onCreateLoader(int i, Bundle bundle) {
+        return new ArticleListLoader(this, bundle != null ? bundle.getString(ARG_SEARCH_QUERY) : null);
     }
 
     @Override
-    public void onLoadFinished(@NonNull Loader<Cursor> cursorLoader, Cursor cursor) {
-        mAdapter.swapCursor(cursor);
-        mAdapter.notifyDataSetChanged();
-        updateRefreshingUI(false);
-        rerunArticleRevealAnimation();
+    public void onLoadFinished(@NonNull Loader<ArticleListWindow> loader, ArticleListWindow window) {
+        StartupTrace.contentLoaded(window.size());
+        // Only new content is revealed; updates to the shown list animate just what changed
+        if (mReplaceOnLoad) {
+            mReplaceOnLoad = false;
+            mAdapter.replaceWindow(window);
+            rerunArticleRevealAnimation();
+        } else {
+            mAdapter.swapWindow(window);
+        }
     }
 
     @Override
-    public void onLoaderReset(@NonNull Loader<Cursor> loader) {
+    public void onLoaderReset(@NonNull Loader<ArticleListWindow> loader) {
         mRecyclerView.setAdapter(null);
     }
 
+    @Override
+    public void onLoadMore() {
+        Loader<ArticleListWindow> loader = getSupportLoaderManager().getLoader(ARTICLE_LIST_LOADER_ID);
+        if (loader instanceof ArticleListLoader) {
+            ((ArticleListLoader) loader).loadMore();
+        }
+    }
+
     @Override
     public void onRefresh() {
         updateRefreshingUI(true);
@@ -188,6 +288,12 @@ public class ArticleListActivity extends AppCompatActivity implements LoaderMana
         }
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(SEARCH_QUERY_SAV, mSearchQuery);
+    }
+
     @Override
     protected void onDestroy() {
         getSupportLoaderManager().destroyLoader(ARTICLE_LIST_LOADER_ID);
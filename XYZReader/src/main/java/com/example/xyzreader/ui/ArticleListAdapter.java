@@ -1,50 +1,154 @@
 package com.example.xyzreader.ui;
 
-import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.widget.TextViewCompat;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
-import android.text.Html;
-import android.text.format.DateUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.example.xyzreader.R;
-import com.example.xyzreader.data.ArticleLoader;
+import com.example.xyzreader.data.ArticleListWindow;
+import com.example.xyzreader.remote.NetworkModule;
 import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.ViewHolder> {
 
     private static final String TAG = ArticleListAdapter.class.toString();
-    private Cursor mCursor;
+    /** Request the next page once binding gets this close to the end of the window. */
+    private static final int PREFETCH_DISTANCE = 10;
+    /** Build card text this many positions ahead of the one being bound. */
+    private static final int PRECOMPUTE_AHEAD = 12;
+    /** Fetch thumbnails this many positions ahead of the one being bound. */
+    private static final int THUMBNAIL_PREFETCH_AHEAD = 6;
+
+    private ArticleListWindow mWindow;
     private ItemClickListener mItemClickListener;
-    private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.sss");
-    // Use default locale format
-    private SimpleDateFormat outputFormat = new SimpleDateFormat();
-    // Most time functions can only handle 1902 - 2037
-    private GregorianCalendar START_OF_EPOCH = new GregorianCalendar(2,1,1);
+    private LoadMoreListener mLoadMoreListener;
+    private final ArticleCardTextCache mTextCache = new ArticleCardTextCache();
+    /** Tag for thumbnail prefetches, so they can be cancelled when the window is replaced. */
+    private final Object mThumbnailPrefetchTag = new Object();
+    /** Width of a card thumbnail once one has been laid out, 0 until then. */
+    private int mThumbnailWidth;
+    /** Positions below this already had their thumbnail prefetched. */
+    private int mThumbnailPrefetchEnd;
+    private Picasso mPicasso;
+    /** Incremented by every window change, so that stale diffs are dropped. */
+    private int mDiffGeneration;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private static final Executor sDiffExecutor = Executors.newSingleThreadExecutor();
 
-    public ArticleListAdapter(Cursor cursor) {
-        mCursor = cursor;
+    public ArticleListAdapter(ArticleListWindow window) {
+        mWindow = window;
     }
 
-    void swapCursor(Cursor cursor) {
-        mCursor = cursor;
+    /**
+     * Replaces the displayed window with one of unrelated content, such as the first load or
+     * the results of another search, rebinding every card.
+     */
+    void replaceWindow(ArticleListWindow window) {
+        mDiffGeneration++;
+        mWindow = window;
+        mTextCache.clear();
+        if (mPicasso != null) {
+            mPicasso.cancelTag(mThumbnailPrefetchTag);
+        }
+        mThumbnailPrefetchEnd = 0;
+        if (window != null) {
+            mTextCache.prefetch(window, 0, PRECOMPUTE_AHEAD);
+        }
         notifyDataSetChanged();
     }
 
+    /**
+     * Updates the displayed window to a newer version of it. A window that only appends a page
+     * to the current one is dispatched as an insertion right away. Anything else is diffed
+     * against the current window by id and content in the background, and dispatched as the
+     * insertions, removals, moves and changes it found, so that unchanged cards keep their
+     * views and are not bound again.
+     */
+    void swapWindow(final ArticleListWindow window) {
+        final ArticleListWindow old = mWindow;
+        final int generation = ++mDiffGeneration;
+        if (old == null || window == null) {
+            replaceWindow(window);
+            return;
+        }
+        if (window.extendsWindow(old)) {
+            mWindow = window;
+            if (window.size() > old.size()) {
+                mTextCache.prefetch(window, old.size(), PRECOMPUTE_AHEAD);
+                notifyItemRangeInserted(old.size(), window.size() - old.size());
+            }
+            return;
+        }
+        sDiffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new WindowDiff(old, window));
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // A later window replaced this one while it was being diffed
+                        if (generation != mDiffGeneration) {
+                            return;
+                        }
+                        mWindow = window;
+                        mThumbnailPrefetchEnd = 0;
+                        mTextCache.resetPrefetch();
+                        diff.dispatchUpdatesTo(ArticleListAdapter.this);
+                    }
+                });
+            }
+        });
+    }
+
+    /** Compares windows by article id, and the articles with the same id by content. */
+    private static class WindowDiff extends DiffUtil.Callback {
+        private final ArticleListWindow mOld;
+        private final ArticleListWindow mNew;
+
+        WindowDiff(ArticleListWindow oldWindow, ArticleListWindow newWindow) {
+            mOld = oldWindow;
+            mNew = newWindow;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOld.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNew.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return mOld.getId(oldPosition) == mNew.getId(newPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return mOld.hasSameContent(oldPosition, mNew, newPosition);
+        }
+    }
+
     @Override
     public long getItemId(int position) {
-        if (mCursor != null && position != -1) {
-            mCursor.moveToPosition(position);
-            return mCursor.getLong(ArticleLoader.Query._ID);
+        if (mWindow != null && position != -1) {
+            return mWindow.getId(position);
         }
         return 0;
     }
@@ -53,57 +157,93 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
     @Override
     public ViewHolder onCreateViewHolder(@NonNull final ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item_article, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        if (mPicasso == null) {
+            mPicasso = NetworkModule.get(parent.getContext()).picasso();
+        }
+        if (!mTextCache.hasTextParams()) {
+            mTextCache.setTextParams(TextViewCompat.getTextMetricsParams(holder.titleView),
+                    TextViewCompat.getTextMetricsParams(holder.subtitleView));
+        }
+        return holder;
     }
 
-    private Date parsePublishedDate() {
-        if (mCursor != null) {
+    private static void setText(TextView view, CharSequence text) {
+        if (text instanceof PrecomputedTextCompat) {
             try {
-                String date = mCursor.getString(ArticleLoader.Query.PUBLISHED_DATE);
-                return dateFormat.parse(date);
-            } catch (ParseException ex) {
-                Log.e(TAG, ex.getMessage());
-                Log.i(TAG, "passing today's date");
-                return new Date();
+                TextViewCompat.setPrecomputedText(view, (PrecomputedTextCompat) text);
+                return;
+            } catch (IllegalArgumentException e) {
+                // Measured for different text metrics; fall back to a regular layout
             }
         }
-        return null;
+        view.setText(text);
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        if (mCursor != null) {
-            mCursor.moveToPosition(position);
-            holder.titleView.setText(mCursor.getString(ArticleLoader.Query.TITLE));
-            Date publishedDate = parsePublishedDate();
-            if (!publishedDate.before(START_OF_EPOCH.getTime())) {
-
-                holder.subtitleView.setText(Html.fromHtml(
-                        DateUtils.getRelativeTimeSpanString(
-                                publishedDate.getTime(),
-                                System.currentTimeMillis(), DateUtils.HOUR_IN_MILLIS,
-                                DateUtils.FORMAT_ABBREV_ALL).toString()
-                                + "<br/>" + " by "
-                                + mCursor.getString(ArticleLoader.Query.AUTHOR)));
-            } else {
-                holder.subtitleView.setText(Html.fromHtml(
-                        outputFormat.format(publishedDate)
-                                + "<br/>" + " by "
-                                + mCursor.getString(ArticleLoader.Query.AUTHOR)));
+        if (mWindow != null) {
+            ArticleCardTextCache.CardText text = mTextCache.get(mWindow, position);
+            setText(holder.titleView, text.title);
+            setText(holder.subtitleView, text.subtitle);
+            mTextCache.prefetch(mWindow, position + 1, PRECOMPUTE_AHEAD);
+
+            holder.thumbnailView.setAspectRatio(mWindow.getAspectRatio(position));
+            // All columns are equally wide, so any laid out card tells the size of the others
+            if (holder.thumbnailView.getWidth() > 0) {
+                mThumbnailWidth = holder.thumbnailView.getWidth();
+            }
+            RequestCreator thumbnail = thumbnailRequest(position);
+            if (thumbnail == null) {
+                thumbnail = mPicasso.load(mWindow.getThumbUrl(position))
+                        .config(Bitmap.Config.RGB_565)
+                        .fit()
+                        .centerCrop();
+            }
+            thumbnail.into(holder.thumbnailView);
+            prefetchThumbnails(position + 1);
+
+            if (mLoadMoreListener != null && mWindow.hasMore()
+                    && position >= mWindow.size() - PREFETCH_DISTANCE) {
+                mLoadMoreListener.onLoadMore();
             }
+        }
+    }
 
-            holder.thumbnailView.setAspectRatio(mCursor.getFloat(ArticleLoader.Query.ASPECT_RATIO));
+    /**
+     * Request decoding the thumbnail at the size its card will be laid out at, or null while no
+     * card has been measured yet. Prefetches and binds must build identical requests so they
+     * share one memory cache entry.
+     */
+    private RequestCreator thumbnailRequest(int position) {
+        if (mThumbnailWidth <= 0) {
+            return null;
+        }
+        int height = DynamicHeightNetworkImageView.heightForWidth(mThumbnailWidth,
+                mWindow.getAspectRatio(position));
+        return mPicasso.load(mWindow.getThumbUrl(position))
+                .config(Bitmap.Config.RGB_565)
+                .resize(mThumbnailWidth, Math.max(height, 1))
+                .centerCrop();
+    }
 
-            Picasso.with(holder.thumbnailView.getContext())
-                    .load(mCursor.getString(ArticleLoader.Query.THUMB_URL))
-                    .into(holder.thumbnailView);
+    private void prefetchThumbnails(int from) {
+        int end = Math.min(mWindow.size(), from + THUMBNAIL_PREFETCH_AHEAD);
+        for (int i = Math.max(from, mThumbnailPrefetchEnd); i < end; i++) {
+            RequestCreator thumbnail = thumbnailRequest(i);
+            if (thumbnail == null) {
+                // Without a target size a prefetch would decode the full image
+                return;
+            }
+            thumbnail.tag(mThumbnailPrefetchTag).fetch();
+            mThumbnailPrefetchEnd = i + 1;
         }
     }
 
     @Override
     public int getItemCount() {
-        if (mCursor != null) {
-            return mCursor.getCount();
+        if (mWindow != null) {
+            return mWindow.size();
         }
         return 0;
     }
@@ -138,4 +278,13 @@ public class ArticleListAdapter extends RecyclerView.Adapter<ArticleListAdapter.
     public interface ItemClickListener {
         void onItemClick(View view, long itemId);
     }
+
+    public void setLoadMoreListener(LoadMoreListener loadMoreListener) {
+        mLoadMoreListener = loadMoreListener;
+    }
+
+    public interface LoadMoreListener {
+        /** Called when binding gets close to the end of the loaded window. */
+        void onLoadMore();
+    }
 }
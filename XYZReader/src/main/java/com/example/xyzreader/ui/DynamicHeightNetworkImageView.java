@@ -29,6 +29,11 @@ public class DynamicHeightNetworkImageView extends AppCompatImageView {
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
         int measuredWidth = getMeasuredWidth();
-        setMeasuredDimension(measuredWidth, (int) (measuredWidth / mAspectRatio));
+        setMeasuredDimension(measuredWidth, heightForWidth(measuredWidth, mAspectRatio));
+    }
+
+    /** Height the view takes for the given width, so images can be decoded at that size. */
+    static int heightForWidth(int width, float aspectRatio) {
+        return (int) (width / aspectRatio);
     }
 }
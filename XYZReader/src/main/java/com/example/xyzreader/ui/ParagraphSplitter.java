@@ -0,0 +1,160 @@
+package com.example.xyzreader.ui;
+
+/**
+ * Cuts article body markup into paragraphs, one at a time, so that the first ones can be shown
+ * before the rest of a long body has even been looked at. A paragraph ends at a blank line,
+ * whether written as two line breaks ({@code \n} or {@code <br>}) or as a block element.
+ * Script and style elements are skipped entirely. Overly long paragraphs are cut at a word
+ * boundary, or between characters if they have none, so no single piece of a body costs more
+ * than a bounded amount of work to show.
+ */
+final class ParagraphSplitter {
+    /** Tag breaks not a paragraph but a line. */
+    private static final int LINE_BREAK = 1;
+    /** Tag ends a paragraph by itself. */
+    private static final int BLOCK_BREAK = 2;
+    /** Tag is part of the text, e.g. inline formatting. */
+    private static final int INLINE = -1;
+    /** Paragraphs are cut at the first blank after this many characters. */
+    static final int MAX_PARAGRAPH_LENGTH = 4000;
+    /** Paragraphs without a blank, e.g. CJK prose or long URLs, are cut at this length. */
+    static final int HARD_PARAGRAPH_LENGTH = 2 * MAX_PARAGRAPH_LENGTH;
+    /** Longest character reference not to cut into, as in {@code &thetasym;}. */
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private final String mHtml;
+    private int mPosition;
+
+    ParagraphSplitter(String html) {
+        mHtml = html;
+    }
+
+    /** Returns the markup of the next paragraph with any text in it, or null at the end. */
+    String next() {
+        final String html = mHtml;
+        final int length = html.length();
+        int start = -1;
+        // Start of the run of whitespace and breaks since the last text, and its breaks
+        int blankStart = -1;
+        int breaks = 0;
+        int i = mPosition;
+        while (i < length) {
+            char c = html.charAt(i);
+            int next = i + 1;
+            int tagBreaks = 0;
+            boolean blank;
+            if (c == '<') {
+                int end = html.indexOf('>', i);
+                next = end < 0 ? length : end + 1;
+                tagBreaks = classifyTag(html, i + 1, end < 0 ? length : end);
+                if (tagBreaks == BLOCK_BREAK && isRawTextElement(html, i + 1)) {
+                    next = skipElement(html, i + 1, next);
+                }
+                blank = tagBreaks != INLINE;
+            } else if (c == '\n') {
+                tagBreaks = LINE_BREAK;
+                blank = true;
+            } else {
+                blank = Character.isWhitespace(c);
+            }
+
+            if (blank) {
+                if (blankStart < 0) {
+                    blankStart = i;
+                }
+                breaks += tagBreaks;
+                if (start >= 0 && i - start >= MAX_PARAGRAPH_LENGTH) {
+                    mPosition = blankStart;
+                    return html.substring(start, blankStart);
+                }
+            } else {
+                if (start >= 0 && breaks >= BLOCK_BREAK) {
+                    mPosition = blankStart;
+                    return html.substring(start, blankStart);
+                }
+                if (start >= 0 && i - start >= HARD_PARAGRAPH_LENGTH
+                        && !Character.isLowSurrogate(c) && !isInCharacterReference(html, i)) {
+                    mPosition = i;
+                    return html.substring(start, i);
+                }
+                if (start < 0) {
+                    start = i;
+                }
+                blankStart = -1;
+                breaks = 0;
+            }
+            i = next;
+        }
+        mPosition = length;
+        if (start < 0) {
+            return null;
+        }
+        return html.substring(start, blankStart >= 0 ? blankStart : length);
+    }
+
+    /** Whether {@code i} is past the {@code &} of a character reference not yet ended. */
+    private static boolean isInCharacterReference(String html, int i) {
+        for (int j = i - 1; j >= 0 && j >= i - MAX_ENTITY_LENGTH; j--) {
+            char c = html.charAt(j);
+            if (c == '&') {
+                return true;
+            }
+            if (c == ';' || !Character.isLetterOrDigit(c) && c != '#') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** Classifies the tag whose name starts at {@code from}, ending before {@code to}. */
+    private static int classifyTag(String html, int from, int to) {
+        if (from < to && html.charAt(from) == '/') {
+            from++;
+        }
+        if (from < to && html.charAt(from) == '!') {
+            // Comment or doctype, nothing to show
+            return 0;
+        }
+        int end = from;
+        while (end < to && Character.isLetterOrDigit(html.charAt(end))) {
+            end++;
+        }
+        if (tagIs(html, from, end, "br")) {
+            return LINE_BREAK;
+        }
+        if (tagIs(html, from, end, "p") || tagIs(html, from, end, "div")
+                || tagIs(html, from, end, "blockquote") || tagIs(html, from, end, "li")
+                || tagIs(html, from, end, "ul") || tagIs(html, from, end, "ol")
+                || tagIs(html, from, end, "hr") || isHeading(html, from, end)
+                || tagIs(html, from, end, "script") || tagIs(html, from, end, "style")) {
+            return BLOCK_BREAK;
+        }
+        return INLINE;
+    }
+
+    private static boolean isHeading(String html, int from, int end) {
+        return end - from == 2 && Character.toLowerCase(html.charAt(from)) == 'h'
+                && html.charAt(from + 1) >= '1' && html.charAt(from + 1) <= '6';
+    }
+
+    private static boolean tagIs(String html, int from, int end, String name) {
+        return end - from == name.length() && html.regionMatches(true, from, name, 0, end - from);
+    }
+
+    private static boolean isRawTextElement(String html, int from) {
+        return html.regionMatches(true, from, "script", 0, 6)
+                || html.regionMatches(true, from, "style", 0, 5);
+    }
+
+    /** Returns the position after the end tag of the script or style element at {@code from}. */
+    private static int skipElement(String html, int from, int afterStartTag) {
+        String endTag = html.regionMatches(true, from, "script", 0, 6) ? "</script" : "</style";
+        for (int i = html.indexOf('<', afterStartTag); i >= 0; i = html.indexOf('<', i + 1)) {
+            if (html.regionMatches(true, i, endTag, 0, endTag.length())) {
+                int end = html.indexOf('>', i);
+                return end < 0 ? html.length() : end + 1;
+            }
+        }
+        return html.length();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.xyzreader.ui;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Logs the milestones of a cold start, in milliseconds since the process started: the first
+ * window of articles loaded and the first frame showing article cards. The latter is also
+ * reported as the activity being fully drawn, which is what startup measurements
+ * ({@code am start -W}, the "Fully drawn" log line) pick up.
+ */
+final class StartupTrace {
+    private static final String TAG = "StartupTrace";
+
+    /** Fallback start time before API 24, when this class is loaded with the first activity. */
+    private static final long sClassLoaded = SystemClock.elapsedRealtime();
+
+    private static boolean sContentLoaded;
+    private static boolean sContentDrawn;
+
+    private StartupTrace() {
+    }
+
+    /** Marks the first window of articles loaded in this process. Main thread only. */
+    static void contentLoaded(int articles) {
+        if (sContentLoaded) {
+            return;
+        }
+        sContentLoaded = true;
+        Log.i(TAG, "First content loaded: " + articles + " articles at +" + sinceStart() + " ms");
+    }
+
+    /** Marks the first frame of {@code activity} showing articles in this process. */
+    static void contentDrawn(Activity activity) {
+        if (sContentDrawn) {
+            return;
+        }
+        sContentDrawn = true;
+        Log.i(TAG, "First content drawn at +" + sinceStart() + " ms");
+        activity.reportFullyDrawn();
+    }
+
+    private static long sinceStart() {
+        long start = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartElapsedRealtime() : sClassLoaded;
+        return SystemClock.elapsedRealtime() - start;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.xyzreader.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArticleListWindowTest {
+    private static final int PAGE = ArticlePageSource.PAGE_SIZE;
+
+    @Test
+    public void buildUponAppendsAfterTheWindow() {
+        ArticleListWindow first = page(ArticleListWindow.builder(PAGE), 0).build(true);
+        ArticleListWindow second = page(first.buildUpon(), PAGE).build(false);
+
+        assertEquals(2 * PAGE, second.size());
+        assertFalse(second.hasMore());
+        for (int i = 0; i < second.size(); i++) {
+            assertArticle(second, i, i);
+        }
+    }
+
+    @Test
+    public void appendingLeavesEarlierWindowsAsTheyWere() {
+        ArticleListWindow first = page(ArticleListWindow.builder(PAGE), 0).build(true);
+        ArticleListWindow second = page(first.buildUpon(), PAGE).build(true);
+        ArticleListWindow third = page(second.buildUpon(), 2 * PAGE).build(true);
+
+        assertEquals(PAGE, first.size());
+        assertEquals(2 * PAGE, second.size());
+        assertEquals(3 * PAGE, third.size());
+        for (int i = 0; i < PAGE; i++) {
+            assertArticle(first, i, i);
+        }
+        try {
+            first.getId(PAGE);
+            fail("Read past the end of the window");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void windowsBuiltUponOneAnotherShareTheLineage() {
+        ArticleListWindow first = page(ArticleListWindow.builder(PAGE), 0).build(true);
+        ArticleListWindow second = page(first.buildUpon(), PAGE).build(true);
+        ArticleListWindow other = page(ArticleListWindow.builder(PAGE), 0).build(true);
+
+        assertTrue(second.extendsWindow(first));
+        assertTrue(second.extendsWindow(second));
+        assertFalse(first.extendsWindow(second));
+        assertFalse(second.extendsWindow(other));
+        assertFalse(second.extendsWindow(null));
+    }
+
+    @Test
+    public void forkFromAnEarlierWindowDoesNotOverwriteTheLaterOne() {
+        ArticleListWindow first = page(ArticleListWindow.builder(PAGE), 0).build(true);
+        ArticleListWindow second = page(first.buildUpon(), PAGE).build(true);
+        ArticleListWindow fork = page(first.buildUpon(), 1000).build(true);
+
+        for (int i = 0; i < 2 * PAGE; i++) {
+            assertArticle(second, i, i);
+        }
+        for (int i = 0; i < PAGE; i++) {
+            assertArticle(fork, i, i);
+            assertArticle(fork, PAGE + i, 1000 + i);
+        }
+        assertTrue(fork.extendsWindow(first));
+    }
+
+    @Test
+    public void concurrentBuildersUponOneWindowDoNotOverwriteEachOther() {
+        ArticleListWindow first = page(ArticleListWindow.builder(PAGE), 0).build(true);
+        ArticleListWindow.Builder a = page(first.buildUpon(), PAGE);
+        ArticleListWindow.Builder b = page(first.buildUpon(), 1000);
+
+        ArticleListWindow fromA = a.build(true);
+        ArticleListWindow fromB = b.build(true);
+
+        for (int i = 0; i < PAGE; i++) {
+            assertArticle(fromA, PAGE + i, PAGE + i);
+            assertArticle(fromB, PAGE + i, 1000 + i);
+        }
+    }
+
+    @Test
+    public void abandonedBuilderDoesNotOverwriteLaterOnes() {
+        ArticleListWindow first = page(ArticleListWindow.builder(PAGE), 0).build(true);
+        ArticleListWindow.Builder abandoned = first.buildUpon();
+        ArticleListWindow second = page(first.buildUpon(), PAGE).build(true);
+
+        page(abandoned, 1000);
+
+        for (int i = 0; i < 2 * PAGE; i++) {
+            assertArticle(second, i, i);
+        }
+    }
+
+    @Test
+    public void deepScrollingKeepsEveryArticle() {
+        ArticleListWindow window = page(ArticleListWindow.builder(PAGE), 0).build(true);
+        for (int i = 1; i < 100; i++) {
+            window = page(window.buildUpon(), i * PAGE).build(true);
+        }
+
+        assertEquals(100 * PAGE, window.size());
+        for (int i = 0; i < window.size(); i++) {
+            assertArticle(window, i, i);
+        }
+    }
+
+    @Test
+    public void authorsAreSharedAcrossPages() {
+        ArticleListWindow.Builder builder = ArticleListWindow.builder(PAGE);
+        builder.add(1, "One", "Ann", 0, "thumb", 1.5f, 1, null);
+        ArticleListWindow first = builder.build(true);
+        builder = first.buildUpon();
+        builder.add(2, "Two", "Bo", 0, "thumb", 1.5f, 2, null);
+        builder.add(3, "Three", "Ann", 0, "thumb", 1.5f, 3, null);
+        ArticleListWindow second = builder.build(false);
+
+        assertEquals("Ann", second.getAuthor(0));
+        assertEquals("Bo", second.getAuthor(1));
+        assertEquals("Ann", second.getAuthor(2));
+        assertEquals("Ann", first.getAuthor(0));
+    }
+
+    @Test
+    public void snippetsAreKeptWhenAppending() {
+        ArticleListWindow.Builder builder = ArticleListWindow.builder(1);
+        builder.add(1, "One", "Ann", 0, "thumb", 1.5f, 1, "<b>one</b>");
+        ArticleListWindow first = builder.build(true);
+        builder = first.buildUpon();
+        builder.add(2, "Two", "Bo", 0, "thumb", 1.5f, 2, "<b>two</b>");
+        ArticleListWindow second = builder.build(false);
+
+        assertEquals("<b>one</b>", second.getSnippet(0));
+        assertEquals("<b>two</b>", second.getSnippet(1));
+        assertNull(page(ArticleListWindow.builder(PAGE), 0).build(false).getSnippet(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builtBuilderRejectsArticles() {
+        ArticleListWindow.Builder builder = page(ArticleListWindow.builder(PAGE), 0);
+        builder.build(true);
+        builder.add(1, "One", "Ann", 0, "thumb", 1.5f, 1, null);
+    }
+
+    /** Appends a page of articles numbered from {@code from}. */
+    private static ArticleListWindow.Builder page(ArticleListWindow.Builder builder, int from) {
+        for (int i = from; i < from + PAGE; i++) {
+            builder.add(i, "Article " + i, "Author " + i % 7, i * 1000L, "thumb " + i, 1.5f,
+                    -i, null);
+        }
+        return builder;
+    }
+
+    private static void assertArticle(ArticleListWindow window, int position, int article) {
+        assertEquals(article, window.getId(position));
+        assertEquals("Article " + article, window.getTitle(position));
+        assertEquals("Author " + article % 7, window.getAuthor(position));
+        assertEquals(article * 1000L, window.getPublishedDate(position));
+        assertEquals("thumb " + article, window.getThumbUrl(position));
+        assertEquals(-article, window.getContentHash(position));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticlePageSourceTest {
+    private static final int ARTICLES = 2 * ArticlePageSource.PAGE_SIZE + 15;
+
+    private ContentResolver mResolver;
+    private ArticlePageSource mSource;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(ItemsProvider.class, ItemsContract.CONTENT_AUTHORITY);
+        mResolver = RuntimeEnvironment.application.getContentResolver();
+        mSource = new ArticlePageSource(mResolver);
+        // Published in runs of seven at the same time, so pages break within a run
+        ContentValues[] values = new ContentValues[ARTICLES];
+        for (int i = 0; i < ARTICLES; i++) {
+            values[i] = TestItems.values(Integer.toString(i), "Article " + i, "Author",
+                    "Body of article " + i + ".");
+            values[i].put(ItemsContract.Items.PUBLISHED_DATE, 1403222400000L + i / 7 * 60000L);
+        }
+        mResolver.bulkInsert(ItemsContract.Items.buildDirUri(), values);
+    }
+
+    @Test
+    public void pagesFollowEachOtherInListOrder() {
+        ArticleListWindow.Builder builder = ArticleListWindow.builder(ArticlePageSource.PAGE_SIZE);
+        List<Integer> counts = new ArrayList<>();
+        int count;
+        do {
+            count = mSource.load(builder, ArticlePageSource.PAGE_SIZE);
+            counts.add(count);
+        } while (count == ArticlePageSource.PAGE_SIZE);
+        ArticleListWindow window = builder.build(false);
+
+        assertEquals(3, counts.size());
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < window.size(); i++) {
+            titles.add(window.getTitle(i));
+        }
+        assertEquals(sortedTitles(), titles);
+    }
+
+    @Test
+    public void pageAfterTheLastIsEmpty() {
+        ArticleListWindow.Builder builder = ArticleListWindow.builder(ARTICLES);
+
+        assertEquals(ARTICLES, mSource.load(builder, ARTICLES));
+        assertEquals(0, mSource.load(builder, ArticlePageSource.PAGE_SIZE));
+    }
+
+    @Test
+    public void listHasNoSnippets() {
+        ArticleListWindow.Builder builder = ArticleListWindow.builder(ArticlePageSource.PAGE_SIZE);
+        mSource.load(builder, ArticlePageSource.PAGE_SIZE);
+
+        assertNull(builder.build(true).getSnippet(0));
+    }
+
+    @Test
+    public void searchHasSnippets() {
+        ArticleListWindow window = mSource.search("article 12", 10);
+
+        assertEquals(1, window.size());
+        assertEquals("Article 12", window.getTitle(0));
+        assertEquals("Body of <b>article</b> <b>12</b>.", window.getSnippet(0));
+    }
+
+    /** Titles in list order, as a single query without paging returns them. */
+    private List<String> sortedTitles() {
+        List<String> titles = new ArrayList<>();
+        Cursor cursor = mResolver.query(ItemsContract.Items.buildDirUri(),
+                new String[] { ItemsContract.Items.TITLE }, null, null,
+                ItemsContract.Items.DEFAULT_SORT);
+        try {
+            while (cursor.moveToNext()) {
+                titles.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return titles;
+    }
+}
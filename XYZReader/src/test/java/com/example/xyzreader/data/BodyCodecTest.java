@@ -0,0 +1,92 @@
+package com.example.xyzreader.data;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BodyCodecTest {
+    private static final String BODY = "It was the best of times, it was the worst of times."
+            + "\r\n\r\n\"Is it?\" said the man, <i>again</i>.\r\n\r\n";
+
+    @Test
+    public void roundTripsText() throws IOException {
+        assertEquals(BODY, BodyCodec.decode(BodyCodec.encode(BODY)));
+    }
+
+    @Test
+    public void roundTripsEmptyText() throws IOException {
+        assertEquals("", BodyCodec.decode(BodyCodec.encode("")));
+    }
+
+    @Test
+    public void roundTripsCharactersBeyondAscii() throws IOException {
+        String body = "Caf\u00e9 \u6771\u4eac \ud83d\udcd6 \u2014 \u00bfqu\u00e9?";
+        assertEquals(body, BodyCodec.decode(BodyCodec.encode(body)));
+    }
+
+    @Test
+    public void roundTripsLongText() throws IOException {
+        StringBuilder body = new StringBuilder();
+        Random random = new Random(42);
+        while (body.length() < 1024 * 1024) {
+            body.append(BODY).append(random.nextInt()).append(' ');
+        }
+        String text = body.toString();
+        assertEquals(text, BodyCodec.decode(BodyCodec.encode(text)));
+    }
+
+    @Test
+    public void compressesShortBodies() {
+        assertTrue(BodyCodec.encode(BODY).length < BODY.length() * 3 / 4);
+    }
+
+    @Test
+    public void rejectsUnknownFormat() {
+        byte[] encoded = BodyCodec.encode(BODY);
+        encoded[0] = 2;
+        assertCorrupt(encoded);
+    }
+
+    @Test
+    public void rejectsMissingHeader() {
+        assertCorrupt(new byte[0]);
+        assertCorrupt(new byte[] { 1, 0, 0 });
+    }
+
+    @Test
+    public void rejectsTruncatedStream() {
+        byte[] encoded = BodyCodec.encode(BODY);
+        assertCorrupt(Arrays.copyOf(encoded, encoded.length / 2));
+    }
+
+    @Test
+    public void rejectsCorruptStream() {
+        byte[] encoded = BodyCodec.encode(BODY);
+        // A block of the reserved type
+        encoded[5] = (byte) 0xff;
+        assertCorrupt(encoded);
+    }
+
+    @Test
+    public void rejectsImpossibleLength() {
+        byte[] encoded = BodyCodec.encode(BODY);
+        encoded[1] = (byte) 0x7f;
+        assertCorrupt(encoded);
+        encoded[1] = (byte) 0xff;
+        assertCorrupt(encoded);
+    }
+
+    private static void assertCorrupt(byte[] encoded) {
+        try {
+            BodyCodec.decode(encoded);
+            fail("Decoded " + Arrays.toString(encoded));
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.xyzreader.data;
+
+/** A clock that only moves when told to. */
+final class FakeClock implements SyncPolicy.Clock {
+    private long mNow;
+
+    FakeClock(long now) {
+        mNow = now;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return mNow;
+    }
+
+    void advance(long millis) {
+        mNow += millis;
+    }
+}
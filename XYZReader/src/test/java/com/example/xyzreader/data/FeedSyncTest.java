@@ -0,0 +1,259 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.util.MalformedJsonException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class FeedSyncTest {
+    private static final int LARGE_FEED_SIZE = 50000;
+    private static final int BATCH_SIZE = 100;
+
+    private MockWebServer mServer;
+    private RecordingProvider mProvider;
+    private FeedSync mSync;
+
+    /** Counts the articles {@link FeedSync} writes and the largest batch it writes them in. */
+    public static class RecordingProvider extends ItemsProvider {
+        int mLargestBatch;
+        int mWritten;
+
+        @Override
+        public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+            mLargestBatch = Math.max(mLargestBatch, values.length);
+            mWritten += values.length;
+            return super.bulkInsert(uri, values);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+        mProvider = Robolectric.setupContentProvider(RecordingProvider.class,
+                ItemsContract.CONTENT_AUTHORITY);
+        mSync = new FeedSync(RuntimeEnvironment.application, mServer.url("/feed.json"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void largeFeedIsWrittenInBoundedBatches() throws Exception {
+        mServer.enqueue(new MockResponse().setChunkedBody(feed(0, LARGE_FEED_SIZE, 0), 8192));
+
+        SyncMetrics metrics = mSync.run();
+
+        assertEquals(LARGE_FEED_SIZE, metrics.getInserted());
+        assertEquals(LARGE_FEED_SIZE, mProvider.mWritten);
+        assertTrue("batch of " + mProvider.mLargestBatch,
+                mProvider.mLargestBatch <= BATCH_SIZE);
+        assertEquals(LARGE_FEED_SIZE, countItems());
+    }
+
+    @Test
+    public void resyncWritesOnlyTheDifferences() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(feed(0, 1000, 0)));
+        mSync.run();
+        mProvider.mWritten = 0;
+
+        // Drops the first 100, edits the next 100 and adds 100 at the end
+        Buffer next = new Buffer().writeUtf8("[");
+        for (int i = 100; i < 1100; i++) {
+            if (i > 100) {
+                next.writeUtf8(",");
+            }
+            writeItem(next, i, i < 200 ? 1 : 0);
+        }
+        mServer.enqueue(new MockResponse().setBody(next.writeUtf8("]")));
+        SyncMetrics metrics = mSync.run();
+
+        assertEquals(100, metrics.getInserted());
+        assertEquals(100, metrics.getUpdated());
+        assertEquals(100, metrics.getDeleted());
+        assertEquals(200, mProvider.mWritten);
+        assertEquals(1000, countItems());
+    }
+
+    @Test
+    public void duplicateItemsAreWrittenOnce() throws Exception {
+        Buffer feed = new Buffer().writeUtf8("[");
+        writeItem(feed, 1, 0);
+        feed.writeUtf8(",");
+        writeItem(feed, 1, 1);
+        mServer.enqueue(new MockResponse().setBody(feed.writeUtf8("]")));
+
+        SyncMetrics metrics = mSync.run();
+
+        assertEquals(1, metrics.getInserted());
+        assertEquals(1, countItems());
+    }
+
+    @Test
+    public void brokenFeedDeletesNothing() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(feed(0, 300, 0)));
+        mSync.run();
+
+        // The second item lacks a title; the articles before it may be written, but nothing
+        // the feed does not reach may be taken for removed.
+        Buffer broken = new Buffer().writeUtf8("[");
+        writeItem(broken, 0, 1);
+        broken.writeUtf8(",{\"id\":\"1\"}]");
+        mServer.enqueue(new MockResponse().setBody(broken));
+        try {
+            mSync.run();
+            fail("Broken feed synced");
+        } catch (MalformedJsonException expected) {
+        }
+
+        assertEquals(300, countItems());
+    }
+
+    @Test
+    public void unchangedFeedIsNotDownloadedAgain() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(feed(0, 10, 0)).setHeader("ETag", "\"v1\""));
+        mServer.enqueue(new MockResponse().setResponseCode(304));
+        mSync.run();
+
+        SyncMetrics metrics = mSync.run();
+
+        assertNull(mServer.takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v1\"", mServer.takeRequest().getHeader("If-None-Match"));
+        assertTrue(metrics.isNotModified());
+        assertEquals(10, countItems());
+    }
+
+    @Test
+    public void emptyStoreGetsTheWholeFeed() throws Exception {
+        mServer.enqueue(new MockResponse().setBody(feed(0, 10, 0)).setHeader("ETag", "\"v1\""));
+        mServer.enqueue(new MockResponse().setResponseCode(304));
+        mSync.run();
+        RuntimeEnvironment.application.getContentResolver().delete(
+                ItemsContract.Items.buildDirUri(), null, null);
+
+        // Revalidated by the HTTP cache, which answers the 304 with the feed it holds
+        SyncMetrics metrics = mSync.run();
+
+        assertFalse(metrics.isNotModified());
+        assertEquals(10, metrics.getInserted());
+        assertEquals(10, countItems());
+    }
+
+    @Test
+    public void contentHashIsStable() {
+        assertEquals(FeedSync.contentHash(item("1", "Title", "Body")),
+                FeedSync.contentHash(item("1", "Title", "Body")));
+    }
+
+    @Test
+    public void contentHashCoversEveryFeedColumn() {
+        long hash = FeedSync.contentHash(item("1", "Title", "Body"));
+        String[] columns = {
+                ItemsContract.Items.SERVER_ID,
+                ItemsContract.Items.AUTHOR,
+                ItemsContract.Items.TITLE,
+                ItemsContract.Items.BODY,
+                ItemsContract.Items.THUMB_URL,
+                ItemsContract.Items.PHOTO_URL,
+                ItemsContract.Items.ASPECT_RATIO,
+                ItemsContract.Items.PUBLISHED_DATE,
+        };
+        for (String column : columns) {
+            ContentValues changed = item("1", "Title", "Body");
+            changed.put(column, changed.getAsString(column) + "!");
+            assertNotEquals(column, hash, FeedSync.contentHash(changed));
+        }
+    }
+
+    @Test
+    public void contentHashSeparatesColumns() {
+        assertNotEquals(FeedSync.contentHash(item("1", "Title", "Body")),
+                FeedSync.contentHash(item("1", "TitleB", "ody")));
+    }
+
+    @Test
+    public void contentHashIgnoresStoredColumns() {
+        ContentValues values = item("1", "Title", "Body");
+        long hash = FeedSync.contentHash(values);
+        values.put(ItemsContract.Items.CONTENT_HASH, hash);
+
+        assertEquals(hash, FeedSync.contentHash(values));
+    }
+
+    private static ContentValues item(String serverId, String title, String body) {
+        ContentValues values = new ContentValues();
+        values.put(ItemsContract.Items.SERVER_ID, serverId);
+        values.put(ItemsContract.Items.AUTHOR, "Author");
+        values.put(ItemsContract.Items.TITLE, title);
+        values.put(ItemsContract.Items.BODY, body);
+        values.put(ItemsContract.Items.THUMB_URL, "https://example.com/thumb.jpg");
+        values.put(ItemsContract.Items.PHOTO_URL, "https://example.com/photo.jpg");
+        values.put(ItemsContract.Items.ASPECT_RATIO, "1.5");
+        values.put(ItemsContract.Items.PUBLISHED_DATE, "2014-06-20T00:00:00.000");
+        return values;
+    }
+
+    private int countItems() {
+        Cursor cursor = RuntimeEnvironment.application.getContentResolver().query(
+                ItemsContract.Items.buildDirUri(), new String[] { ItemsContract.Items._ID },
+                null, null, null);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /** Returns a feed of the articles {@code from} to {@code from + count}. */
+    static Buffer feed(int from, int count, int revision) {
+        Buffer feed = new Buffer().writeUtf8("[");
+        for (int i = from; i < from + count; i++) {
+            if (i > from) {
+                feed.writeUtf8(",");
+            }
+            writeItem(feed, i, revision);
+        }
+        return feed.writeUtf8("]");
+    }
+
+    /** Writes article {@code id}; articles differ in content between revisions. */
+    static void writeItem(Buffer feed, int id, int revision) {
+        feed.writeUtf8("{\"id\":\"").writeUtf8(Integer.toString(id))
+                .writeUtf8("\",\"title\":\"Article ").writeUtf8(Integer.toString(id))
+                .writeUtf8("\",\"author\":\"Author ").writeUtf8(Integer.toString(id % 50))
+                .writeUtf8("\",\"body\":\"Revision ").writeUtf8(Integer.toString(revision))
+                .writeUtf8(" of article ").writeUtf8(Integer.toString(id))
+                .writeUtf8(".\\r\\n\\r\\nA second paragraph, long enough to be compressed like"
+                        + " a real one would be, with some words repeated and repeated.\"")
+                .writeUtf8(",\"thumb\":\"https://example.com/").writeUtf8(Integer.toString(id))
+                .writeUtf8("-thumb.jpg\",\"photo\":\"https://example.com/")
+                .writeUtf8(Integer.toString(id))
+                .writeUtf8(".jpg\",\"aspect_ratio\":\"1.5\"")
+                .writeUtf8(",\"published_date\":\"2014-06-20T00:00:00.000\"}");
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Times the provider on Robolectric's SQLite at several corpus sizes: writing a feed with
+ * {@link ItemsProvider#bulkInsert} in sync sized batches, loading list pages, opening an
+ * article and searching. Robolectric runs a desktop SQLite, so the numbers are for comparing
+ * commits with each other, not for predicting a phone.
+ * <p>
+ * Skipped by the unit tests; run with
+ * {@code gradlew :XYZReader:testDebugUnitTest -Pbenchmark --tests '*Benchmark'}. Results are
+ * written in the JSON format of JMH to {@code build/reports/benchmarks}.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class ItemsProviderBenchmark {
+    /** As FeedSync writes them. */
+    private static final int BATCH_SIZE = 100;
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int ITERATIONS = 5;
+    /** Repetitions of a query within one iteration, which would be too short to time. */
+    private static final int QUERIES = 50;
+    /** As the list loader asks for. */
+    private static final int SEARCH_LIMIT = 100;
+    private static final int BODY_LENGTH = 6000;
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "a", "in", "was", "she", "he", "said", "little", "house",
+            "river", "garden", "letter", "morning", "window", "harbour", "station", "winter",
+            "stranger", "remembered", "suddenly", "question", "silence", "village", "journey",
+    };
+
+    private static final List<String> sResults = new ArrayList<>();
+
+    private final int mArticles;
+    private ContentResolver mResolver;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "articles={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][] { { 100 }, { 1000 }, { 5000 } });
+    }
+
+    public ItemsProviderBenchmark(int articles) {
+        mArticles = articles;
+    }
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(ItemsProvider.class, ItemsContract.CONTENT_AUTHORITY);
+        mResolver = RuntimeEnvironment.application.getContentResolver();
+    }
+
+    @AfterClass
+    public static void writeResults() throws IOException {
+        String directory = System.getProperty("benchmark.results");
+        if (directory == null || sResults.isEmpty()) {
+            return;
+        }
+        File file = new File(directory, "ItemsProviderBenchmark.json");
+        file.getParentFile().mkdirs();
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write("[\n");
+            for (int i = 0; i < sResults.size(); i++) {
+                writer.write(sResults.get(i));
+                writer.write(i < sResults.size() - 1 ? ",\n" : "\n");
+            }
+            writer.write("]\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void bulkInsert() {
+        measure("bulkInsert", 1, new Operation() {
+            @Override
+            void before() {
+                mResolver.delete(ItemsContract.Items.buildDirUri(), null, null);
+            }
+
+            @Override
+            void run() {
+                insertArticles(0);
+            }
+        });
+    }
+
+    @Test
+    public void bulkUpdate() {
+        insertArticles(0);
+        measure("bulkUpdate", 1, new Operation() {
+            private int mRevision;
+
+            @Override
+            void run() {
+                insertArticles(++mRevision);
+            }
+        });
+    }
+
+    @Test
+    public void listPage() {
+        insertArticles(0);
+        final ArticlePageSource source = new ArticlePageSource(mResolver);
+        measure("listPage", QUERIES, new Operation() {
+            @Override
+            void run() {
+                for (int i = 0; i < QUERIES; i++) {
+                    ArticleListWindow.Builder window = ArticleListWindow.builder(
+                            ArticlePageSource.PAGE_SIZE);
+                    source.load(window, ArticlePageSource.PAGE_SIZE);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void item() {
+        insertArticles(0);
+        final long[] ids = ids();
+        measure("item", QUERIES, new Operation() {
+            @Override
+            void run() {
+                for (int i = 0; i < QUERIES; i++) {
+                    Cursor cursor = mResolver.query(
+                            ItemsContract.Items.buildItemUri(ids[i * 7919 % ids.length]),
+                            ArticleCache.Query.PROJECTION, null, null, null);
+                    try {
+                        cursor.moveToFirst();
+                        cursor.getString(ArticleCache.Query.BODY);
+                    } finally {
+                        cursor.close();
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void search() {
+        insertArticles(0);
+        final ArticlePageSource source = new ArticlePageSource(mResolver);
+        measure("search", QUERIES, new Operation() {
+            @Override
+            void run() {
+                for (int i = 0; i < QUERIES; i++) {
+                    source.search("harbour morn", SEARCH_LIMIT);
+                }
+            }
+        });
+    }
+
+    private abstract static class Operation {
+        /** Prepares an iteration, untimed. */
+        void before() {
+        }
+
+        abstract void run();
+    }
+
+    private void measure(String name, int operations, Operation operation) {
+        double[] millis = new double[ITERATIONS];
+        for (int i = -WARMUP_ITERATIONS; i < ITERATIONS; i++) {
+            operation.before();
+            long start = System.nanoTime();
+            operation.run();
+            long elapsed = System.nanoTime() - start;
+            if (i >= 0) {
+                millis[i] = elapsed / 1e6 / operations;
+            }
+        }
+        sResults.add(toJson(name, millis));
+    }
+
+    /** Writes the corpus, as revision {@code revision} of every article, in sync batches. */
+    private void insertArticles(int revision) {
+        ContentValues[] batch = new ContentValues[BATCH_SIZE];
+        int size = 0;
+        for (int i = 0; i < mArticles; i++) {
+            batch[size++] = article(i, revision);
+            if (size == BATCH_SIZE || i == mArticles - 1) {
+                mResolver.bulkInsert(ItemsContract.Items.buildDirUri(),
+                        Arrays.copyOf(batch, size));
+                size = 0;
+            }
+        }
+    }
+
+    private long[] ids() {
+        Cursor cursor = mResolver.query(ItemsContract.Items.buildDirUri(),
+                new String[] { ItemsContract.Items._ID }, null, null, null);
+        try {
+            long[] ids = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+            }
+            return ids;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /** Returns article {@code i}, the same on every run; revisions differ in their bodies. */
+    private static ContentValues article(int i, int revision) {
+        Random random = new Random(i);
+        StringBuilder body = new StringBuilder(BODY_LENGTH + 100);
+        body.append("Revision ").append(revision).append('.');
+        while (body.length() < BODY_LENGTH) {
+            body.append(random.nextInt(12) == 0 ? ".\r\n\r\n" : " ")
+                    .append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        ContentValues values = TestItems.values(Integer.toString(i),
+                "Article " + i + " " + WORDS[i % WORDS.length], "Author " + i % 50,
+                body.toString());
+        values.put(ItemsContract.Items.PUBLISHED_DATE, 1403222400000L - i * 60000L);
+        return values;
+    }
+
+    private String toJson(String name, double[] millis) {
+        double sum = 0;
+        StringBuilder raw = new StringBuilder();
+        for (double value : millis) {
+            sum += value;
+            raw.append(raw.length() > 0 ? ", " : "").append(format(value));
+        }
+        return "    {\n"
+                + "        \"benchmark\" : \"" + getClass().getName() + "." + name + "\",\n"
+                + "        \"mode\" : \"avgt\",\n"
+                + "        \"warmupIterations\" : " + WARMUP_ITERATIONS + ",\n"
+                + "        \"measurementIterations\" : " + ITERATIONS + ",\n"
+                + "        \"params\" : { \"articles\" : \"" + mArticles + "\" },\n"
+                + "        \"primaryMetric\" : {\n"
+                + "            \"score\" : " + format(sum / millis.length) + ",\n"
+                + "            \"scoreUnit\" : \"ms/op\",\n"
+                + "            \"rawData\" : [ [ " + raw + " ] ]\n"
+                + "        }\n"
+                + "    }";
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.4f", value);
+    }
+}
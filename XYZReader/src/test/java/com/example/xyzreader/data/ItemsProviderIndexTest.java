@@ -0,0 +1,96 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/** The search index follows every way an item's text changes. */
+@RunWith(RobolectricTestRunner.class)
+public class ItemsProviderIndexTest {
+    private ContentResolver mResolver;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(ItemsProvider.class, ItemsContract.CONTENT_AUTHORITY);
+        mResolver = RuntimeEnvironment.application.getContentResolver();
+        mResolver.bulkInsert(ItemsContract.Items.buildDirUri(), new ContentValues[] {
+                TestItems.values("1", "Gardens", "Ann", "Notes on lighthouses."),
+                TestItems.values("2", "Rivers", "Bo", "Water, mostly."),
+        });
+    }
+
+    @Test
+    public void rewrittenItemIsFoundOnlyByItsNewText() {
+        mResolver.bulkInsert(ItemsContract.Items.buildDirUri(), new ContentValues[] {
+                TestItems.values("1", "Orchards", "Ann", "Notes on windmills."),
+        });
+
+        assertEquals(Collections.<String>emptyList(), search("lighthouses"));
+        assertEquals(Collections.<String>emptyList(), search("gardens"));
+        assertEquals(Collections.singletonList("Orchards"), search("windmills"));
+        assertEquals(Collections.singletonList("Orchards"), search("orchards"));
+        assertEquals(Collections.singletonList("Rivers"), search("water"));
+        assertContentTableEmpty();
+    }
+
+    @Test
+    public void updatedBodyIsFoundOnlyByItsNewText() {
+        ContentValues values = new ContentValues();
+        values.put(ItemsContract.Items.BODY, "Notes on windmills.");
+        mResolver.update(ItemsContract.Items.buildDirUri(), values,
+                ItemsContract.Items.SERVER_ID + "=?", new String[] { "1" });
+
+        assertEquals(Collections.<String>emptyList(), search("lighthouses"));
+        assertEquals(Collections.singletonList("Gardens"), search("windmills"));
+        assertContentTableEmpty();
+    }
+
+    @Test
+    public void updatedTitleKeepsTheBodyIndexed() {
+        ContentValues values = new ContentValues();
+        values.put(ItemsContract.Items.TITLE, "Orchards");
+        mResolver.update(ItemsContract.Items.buildDirUri(), values,
+                ItemsContract.Items.SERVER_ID + "=?", new String[] { "1" });
+
+        assertEquals(Collections.<String>emptyList(), search("gardens"));
+        assertEquals(Collections.singletonList("Orchards"), search("lighthouses"));
+        assertContentTableEmpty();
+    }
+
+    @Test
+    public void deletedItemIsNotFound() {
+        mResolver.delete(ItemsContract.Items.buildDirUri(),
+                ItemsContract.Items.SERVER_ID + "=?", new String[] { "1" });
+
+        assertEquals(Collections.<String>emptyList(), search("lighthouses"));
+        assertEquals(Collections.singletonList("Rivers"), search("water"));
+        assertContentTableEmpty();
+    }
+
+    private List<String> search(String query) {
+        return TestItems.titles(mResolver, ItemsContract.Items.buildSearchUri(query));
+    }
+
+    /** Old text is only put in the content table for as long as FTS4 needs it. */
+    private static void assertContentTableEmpty() {
+        ItemsDatabase database = new ItemsDatabase(RuntimeEnvironment.application);
+        try {
+            assertEquals(0, DatabaseUtils.queryNumEntries(database.getReadableDatabase(),
+                    ItemsProvider.Tables.ITEMS_FTS_CONTENT));
+        } finally {
+            database.close();
+        }
+    }
+}
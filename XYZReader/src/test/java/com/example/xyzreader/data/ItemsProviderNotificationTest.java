@@ -0,0 +1,138 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.ContentObserver;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+public class ItemsProviderNotificationTest {
+    private ContentResolver mResolver;
+    private final List<Uri> mNotified = new ArrayList<>();
+    private long mFirstId;
+    private long mSecondId;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(ItemsProvider.class, ItemsContract.CONTENT_AUTHORITY);
+        mResolver = RuntimeEnvironment.application.getContentResolver();
+        mFirstId = ContentUris.parseId(mResolver.insert(ItemsContract.Items.buildDirUri(),
+                TestItems.values("1", "One", "Ann", "First.")));
+        mSecondId = ContentUris.parseId(mResolver.insert(ItemsContract.Items.buildDirUri(),
+                TestItems.values("2", "Two", "Bo", "Second.")));
+        mResolver.registerContentObserver(ItemsContract.Items.buildDirUri(), true,
+                new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange, Uri uri) {
+                        mNotified.add(uri);
+                    }
+                });
+    }
+
+    @Test
+    public void insertNotifiesOnlyTheChanges() {
+        mResolver.insert(ItemsContract.Items.buildDirUri(),
+                TestItems.values("3", "Three", "Cy", "Third."));
+
+        assertEquals(Collections.singletonList(ItemsContract.Items.buildChangesUri()), mNotified);
+    }
+
+    @Test
+    public void updateNotifiesTheItemThenTheChanges() {
+        ContentValues values = new ContentValues();
+        values.put(ItemsContract.Items.TITLE, "Uno");
+        mResolver.update(ItemsContract.Items.buildItemUri(mFirstId), values, null, null);
+
+        assertEquals(Arrays.asList(ItemsContract.Items.buildItemUri(mFirstId),
+                ItemsContract.Items.buildChangesUri()), mNotified);
+    }
+
+    @Test
+    public void deleteNotifiesTheItemThenTheChanges() {
+        mResolver.delete(ItemsContract.Items.buildItemUri(mSecondId), null, null);
+
+        assertEquals(Arrays.asList(ItemsContract.Items.buildItemUri(mSecondId),
+                ItemsContract.Items.buildChangesUri()), mNotified);
+    }
+
+    @Test
+    public void bulkInsertNotifiesRewrittenItems() {
+        mResolver.bulkInsert(ItemsContract.Items.buildDirUri(), new ContentValues[] {
+                TestItems.values("2", "Two", "Bo", "Second, edited."),
+                TestItems.values("3", "Three", "Cy", "Third."),
+        });
+
+        assertEquals(Arrays.asList(ItemsContract.Items.buildItemUri(mSecondId),
+                ItemsContract.Items.buildChangesUri()), mNotified);
+    }
+
+    @Test
+    public void batchNotifiesOnceAfterItCommits() throws Exception {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        operations.add(ContentProviderOperation.newUpdate(
+                ItemsContract.Items.buildItemUri(mFirstId))
+                .withValue(ItemsContract.Items.TITLE, "Uno").build());
+        operations.add(ContentProviderOperation.newUpdate(
+                ItemsContract.Items.buildItemUri(mFirstId))
+                .withValue(ItemsContract.Items.TITLE, "Eins").build());
+        operations.add(ContentProviderOperation.newDelete(
+                ItemsContract.Items.buildItemUri(mSecondId)).build());
+        mResolver.applyBatch(ItemsContract.CONTENT_AUTHORITY, operations);
+
+        assertEquals(3, mNotified.size());
+        assertEquals(new HashSet<>(Arrays.asList(ItemsContract.Items.buildItemUri(mFirstId),
+                ItemsContract.Items.buildItemUri(mSecondId))),
+                new HashSet<>(mNotified.subList(0, 2)));
+        assertEquals(ItemsContract.Items.buildChangesUri(), mNotified.get(2));
+    }
+
+    @Test
+    public void failedBatchNotifiesNothing() throws Exception {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        operations.add(ContentProviderOperation.newDelete(
+                ItemsContract.Items.buildItemUri(mFirstId)).build());
+        operations.add(ContentProviderOperation.newInsert(ItemsContract.Items.buildDirUri())
+                .withValue(ItemsContract.Items.TITLE, "No body").build());
+        try {
+            mResolver.applyBatch(ItemsContract.CONTENT_AUTHORITY, operations);
+            fail("Batch without a body applied");
+        } catch (RuntimeException expected) {
+        }
+
+        assertEquals(Collections.<Uri>emptyList(), mNotified);
+    }
+
+    @Test
+    public void manyChangesNotifyTheDirectory() {
+        ContentValues[] values = new ContentValues[40];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = TestItems.values(Integer.toString(100 + i), "Article", "Cy", "Body.");
+        }
+        mResolver.bulkInsert(ItemsContract.Items.buildDirUri(), values);
+        mNotified.clear();
+        ContentValues title = new ContentValues();
+        title.put(ItemsContract.Items.TITLE, "Renamed");
+
+        mResolver.update(ItemsContract.Items.buildDirUri(), title, null, null);
+
+        assertEquals(Collections.singletonList(ItemsContract.Items.buildDirUri()), mNotified);
+    }
+}
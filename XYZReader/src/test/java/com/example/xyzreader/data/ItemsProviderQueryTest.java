@@ -0,0 +1,89 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/** Item queries by id, which reuse their SQL for as long as the projection stays the same. */
+@RunWith(RobolectricTestRunner.class)
+public class ItemsProviderQueryTest {
+    private static final String[] TITLE = { ItemsContract.Items.TITLE };
+    private static final String[] AUTHOR_AND_BODY = {
+            ItemsContract.Items.AUTHOR, ItemsContract.Items.BODY };
+
+    private ContentResolver mResolver;
+    private long mId;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(ItemsProvider.class, ItemsContract.CONTENT_AUTHORITY);
+        mResolver = RuntimeEnvironment.application.getContentResolver();
+        mId = Long.parseLong(mResolver.insert(ItemsContract.Items.buildDirUri(),
+                TestItems.values("1", "One", "Ann", "First body.")).getLastPathSegment());
+        mResolver.insert(ItemsContract.Items.buildDirUri(),
+                TestItems.values("2", "Two", "Bo", "Second body."));
+    }
+
+    @Test
+    public void changedProjectionIsQueried() {
+        assertArrayEquals(new String[] { "One" }, row(mId, TITLE));
+        assertArrayEquals(new String[] { "Ann", "First body." }, row(mId, AUTHOR_AND_BODY));
+        assertArrayEquals(new String[] { "One" }, row(mId, TITLE));
+    }
+
+    @Test
+    public void sameProjectionFindsEachItem() {
+        long other = mId + 1;
+
+        assertArrayEquals(new String[] { "One" }, row(mId, TITLE));
+        assertArrayEquals(new String[] { "Two" }, row(other, TITLE));
+    }
+
+    @Test
+    public void selectionStillApplies() {
+        Cursor cursor = mResolver.query(ItemsContract.Items.buildItemUri(mId), TITLE,
+                ItemsContract.Items.AUTHOR + "=?", new String[] { "Bo" }, null);
+        try {
+            assertFalse(cursor.moveToFirst());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void missingItemHasNoRow() {
+        Cursor cursor = mResolver.query(ItemsContract.Items.buildItemUri(mId + 100), TITLE,
+                null, null, null);
+        try {
+            assertEquals(0, cursor.getCount());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private String[] row(long id, String[] projection) {
+        Cursor cursor = mResolver.query(ItemsContract.Items.buildItemUri(id), projection, null,
+                null, null);
+        try {
+            assertEquals(1, cursor.getCount());
+            cursor.moveToFirst();
+            String[] row = new String[projection.length];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = cursor.getString(i);
+            }
+            return row;
+        } finally {
+            cursor.close();
+        }
+    }
+}
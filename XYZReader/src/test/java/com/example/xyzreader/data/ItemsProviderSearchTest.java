@@ -0,0 +1,51 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class ItemsProviderSearchTest {
+    private ContentResolver mResolver;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(ItemsProvider.class, ItemsContract.CONTENT_AUTHORITY);
+        mResolver = RuntimeEnvironment.application.getContentResolver();
+        mResolver.bulkInsert(ItemsContract.Items.buildDirUri(), new ContentValues[] {
+                TestItems.values("1", "Gardens", "Ann", "Notes on lighthouses and the sea."),
+                TestItems.values("2", "Lighthouses", "Bo", "A history of the coast."),
+                TestItems.values("3", "Rivers", "Lighthouse Keeper", "Water, mostly."),
+                TestItems.values("4", "Mountains", "Cy", "Nothing to see here."),
+        });
+    }
+
+    @Test
+    public void resultsAreRankedByColumn() {
+        assertEquals(Arrays.asList("Lighthouses", "Rivers", "Gardens"),
+                TestItems.titles(mResolver, ItemsContract.Items.buildSearchUri("lighthouse")));
+    }
+
+    @Test
+    public void everyWordHasToMatch() {
+        assertEquals(Collections.singletonList("Gardens"),
+                TestItems.titles(mResolver, ItemsContract.Items.buildSearchUri("sea light")));
+    }
+
+    @Test
+    public void punctuationOnlyFindsNothing() {
+        assertEquals(Collections.<String>emptyList(),
+                TestItems.titles(mResolver, ItemsContract.Items.buildSearchUri("\"*")));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.xyzreader.data;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SearchTextTest {
+    private static final int TITLE = 0;
+    private static final int BODY = 2;
+
+    @Test
+    public void matchExpressionPrefixesEveryWord() {
+        assertEquals("hello* world*", SearchText.toMatchExpression("Hello, World!"));
+    }
+
+    @Test
+    public void matchExpressionDropsSyntax() {
+        assertEquals("title* and* c* x*",
+                SearchText.toMatchExpression("title:\"AND\" (C++) -x*"));
+    }
+
+    @Test
+    public void matchExpressionKeepsNonAsciiLetters() {
+        assertEquals("caf\u00e9* \u6771\u4eac*",
+                SearchText.toMatchExpression("Caf\u00e9 \u6771\u4eac"));
+    }
+
+    @Test
+    public void matchExpressionOfNothingSearchableIsNull() {
+        assertNull(SearchText.toMatchExpression(null));
+        assertNull(SearchText.toMatchExpression(""));
+        assertNull(SearchText.toMatchExpression(" ?! -- "));
+    }
+
+    @Test
+    public void titleHitsOutrankBodyHits() {
+        assertTrue(SearchText.score(matchinfo(100, 10, TITLE, 1))
+                > SearchText.score(matchinfo(100, 10, BODY, 1)));
+    }
+
+    @Test
+    public void rareTermsOutrankCommonOnes() {
+        assertTrue(SearchText.score(matchinfo(100, 2, BODY, 1))
+                > SearchText.score(matchinfo(100, 50, BODY, 1)));
+    }
+
+    @Test
+    public void moreHitsRankHigherWithDiminishingReturns() {
+        double one = SearchText.score(matchinfo(100, 10, BODY, 1));
+        double two = SearchText.score(matchinfo(100, 10, BODY, 2));
+        double three = SearchText.score(matchinfo(100, 10, BODY, 3));
+        assertTrue(two > one);
+        assertTrue(three - two < two - one);
+    }
+
+    @Test
+    public void noHitsScoreNothing() {
+        assertEquals(0, SearchText.score(matchinfo(100, 10, BODY, 0)), 0);
+    }
+
+    @Test
+    public void snippetMarksHitsAroundTheFirst() {
+        String body = "One two three four five six seven <i>needle</i> eight needles nine.";
+        assertEquals("\u2026four five six seven <b>needle</b> eight <b>needles</b> nine.",
+                SearchText.snippet(body, Collections.singletonList("needle")));
+    }
+
+    @Test
+    public void snippetWithoutHitsIsTheStart() {
+        assertEquals("No hits here.",
+                SearchText.snippet("No hits here.", Arrays.asList("needle")));
+    }
+
+    /**
+     * Returns {@code matchinfo(..., 'pcnx')} of one phrase over title, author and body, with
+     * {@code hits} in {@code column} of a row, out of {@code rows} rows of which
+     * {@code rowsWithHits} have a hit there.
+     */
+    private static byte[] matchinfo(int rows, int rowsWithHits, int column, int hits) {
+        int columns = 3;
+        ByteBuffer info = ByteBuffer.allocate(4 * (3 + 3 * columns)).order(ByteOrder.nativeOrder());
+        info.putInt(1).putInt(columns).putInt(rows);
+        for (int i = 0; i < columns; i++) {
+            boolean hit = i == column && hits > 0;
+            info.putInt(hit ? hits : 0).putInt(hit ? hits * rowsWithHits : 0)
+                    .putInt(hit ? rowsWithHits : 0);
+        }
+        return info.array();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class SelectionBuilderTest {
+    private ItemsDatabase mDatabase;
+    private SQLiteDatabase mDb;
+
+    @Before
+    public void setUp() {
+        mDatabase = new ItemsDatabase(RuntimeEnvironment.application);
+        mDb = mDatabase.getWritableDatabase();
+        mDb.execSQL("CREATE TABLE t (a INTEGER, b TEXT)");
+        for (int i = 0; i < 10; i++) {
+            ContentValues values = new ContentValues();
+            values.put("a", i);
+            values.put("b", i % 2 == 0 ? "even" : "odd");
+            mDb.insert("t", null, values);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void clausesAreJoinedWithAnd() {
+        SelectionBuilder builder = new SelectionBuilder().where("a>?", "2").where("b=?", "odd");
+
+        assertEquals("(a>?) AND (b=?)", builder.getSelection());
+        assertArrayEquals(new String[] { "2", "odd" }, builder.getSelectionArgs());
+        assertEquals(4, count(builder.table("t")));
+    }
+
+    @Test
+    public void emptyClauseIsSkipped() {
+        SelectionBuilder builder = new SelectionBuilder().where(null).where("");
+
+        assertNull(builder.getSelection());
+        assertNull(builder.getSelectionArgs());
+        assertEquals(10, count(builder.table("t")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void argumentsWithoutClauseAreRejected() {
+        new SelectionBuilder().where("", "1");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void tableIsRequired() {
+        new SelectionBuilder().where("a=?", "1").query(mDb, null, null);
+    }
+
+    @Test
+    public void builtSelectionIsKeptUntilItChanges() {
+        SelectionBuilder builder = new SelectionBuilder().where("a>?", "2");
+        String[] args = builder.getSelectionArgs();
+
+        assertSame(builder.getSelection(), builder.getSelection());
+        assertSame(args, builder.getSelectionArgs());
+
+        builder.where("b=?", "odd");
+        assertNotSame(args, builder.getSelectionArgs());
+        assertEquals(2, builder.getSelectionArgs().length);
+    }
+
+    @Test
+    public void resetBuilderWorksLikeANewOne() {
+        SelectionBuilder builder = new SelectionBuilder().table("t").where("a>?", "2")
+                .mapToTable("a", "t");
+        assertEquals(7, count(builder));
+
+        builder.reset();
+        assertNull(builder.getSelection());
+        assertNull(builder.getSelectionArgs());
+        assertEquals(5, count(builder.table("t").where("b=?", "even")));
+        assertEquals(new SelectionBuilder().table("t").where("b=?", "even").toString(),
+                builder.toString());
+    }
+
+    @Test
+    public void mappedColumnsAreQualified() {
+        SelectionBuilder builder = new SelectionBuilder().table("t").mapToTable("a", "t")
+                .map("twice", "a * 2").where("a=?", "4");
+        Cursor cursor = builder.query(mDb, new String[] { "a", "twice" }, null);
+        try {
+            cursor.moveToFirst();
+            assertEquals(4, cursor.getInt(cursor.getColumnIndexOrThrow("a")));
+            assertEquals(8, cursor.getInt(cursor.getColumnIndexOrThrow("twice")));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void updateAndDeleteUseTheSelection() {
+        ContentValues values = new ContentValues();
+        values.put("b", "big");
+        SelectionBuilder builder = new SelectionBuilder().table("t").where("a>=?", "8");
+
+        assertEquals(2, builder.update(mDb, values));
+        assertEquals(2, builder.delete(mDb));
+        assertEquals(8, count(new SelectionBuilder().table("t")));
+    }
+
+    private int count(SelectionBuilder builder) {
+        Cursor cursor = builder.query(mDb, new String[] { "a" }, null);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
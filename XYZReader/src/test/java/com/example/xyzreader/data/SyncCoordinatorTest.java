@@ -0,0 +1,116 @@
+package com.example.xyzreader.data;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class SyncCoordinatorTest {
+    private final FakeClock mClock = new FakeClock(1500000000000L);
+    private int mEnqueued;
+    private SyncCoordinator mCoordinator;
+
+    @Before
+    public void setUp() {
+        mCoordinator = new SyncCoordinator(RuntimeEnvironment.application,
+                new SyncPolicy(mClock), new Runnable() {
+                    @Override
+                    public void run() {
+                        mEnqueued++;
+                    }
+                });
+    }
+
+    @Test
+    public void rapidRequestsEnqueueOneSync() {
+        for (int i = 0; i < 20; i++) {
+            mCoordinator.requestSync(true);
+            mClock.advance(100);
+        }
+
+        assertEquals(1, mEnqueued);
+        assertTrue(mCoordinator.getState().isRequested());
+    }
+
+    @Test
+    public void rapidRequestsDuringTheSyncEnqueueNothing() {
+        mCoordinator.requestSync(true);
+        mCoordinator.onSyncStarted(true);
+        for (int i = 0; i < 20; i++) {
+            assertFalse(mCoordinator.requestSync(true));
+            mClock.advance(100);
+        }
+
+        assertEquals(1, mEnqueued);
+    }
+
+    @Test
+    public void requestsRightAfterASyncAreDropped() {
+        mCoordinator.requestSync(true);
+        mCoordinator.onSyncStarted(true);
+        mCoordinator.onSyncSucceeded(true, 1);
+        mClock.advance(SyncPolicy.MIN_INTERVAL_MILLIS - 1);
+
+        assertFalse(mCoordinator.requestSync(true));
+        assertFalse(mCoordinator.getState().isRequested());
+        mClock.advance(1);
+        assertTrue(mCoordinator.requestSync(true));
+        assertEquals(2, mEnqueued);
+    }
+
+    @Test
+    public void requestsJoinARunningBackgroundSync() {
+        mCoordinator.onSyncStarted(false);
+
+        assertFalse(mCoordinator.requestSync(true));
+        assertTrue(mCoordinator.getState().isRequested());
+        assertEquals(0, mEnqueued);
+
+        mCoordinator.onSyncSucceeded(false, 3);
+        SyncState state = mCoordinator.getState();
+        assertFalse(state.isRequested());
+        assertFalse(state.isRunning());
+        assertEquals(3, state.getLastRowsTouched());
+    }
+
+    @Test
+    public void joinedRequestsEndWithTheLastRunningSync() {
+        mCoordinator.onSyncStarted(false);
+        mCoordinator.onSyncStarted(false);
+        mCoordinator.requestSync(true);
+
+        mCoordinator.onSyncFailed(false);
+        assertTrue(mCoordinator.getState().isRequested());
+        mCoordinator.onSyncStopped(false);
+        assertFalse(mCoordinator.getState().isRequested());
+    }
+
+    @Test
+    public void freshItemsAreNotSyncedUnlessForced() {
+        mCoordinator.onSyncStarted(false);
+        mCoordinator.onSyncSucceeded(false, 0);
+        mClock.advance(SyncPolicy.MIN_INTERVAL_MILLIS);
+
+        assertFalse(mCoordinator.requestSync(false));
+        assertTrue(mCoordinator.requestSync(true));
+        assertEquals(1, mEnqueued);
+    }
+
+    @Test
+    public void failedRequestCanBeRepeated() {
+        mCoordinator.requestSync(true);
+        mCoordinator.onSyncStarted(true);
+        mCoordinator.onSyncFailed(true);
+        mClock.advance(SyncPolicy.MIN_INTERVAL_MILLIS);
+
+        assertTrue(mCoordinator.getState().hasLastFailed());
+        assertTrue(mCoordinator.requestSync(false));
+        assertEquals(2, mEnqueued);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.xyzreader.data;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ProtocolException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SyncPolicyTest {
+    private static final long START = 1500000000000L;
+
+    private final FakeClock mClock = new FakeClock(START);
+    private final SyncPolicy mPolicy = new SyncPolicy(mClock);
+
+    @Test
+    public void syncIsDueWithoutSuccess() {
+        assertTrue(mPolicy.isSyncDue(0));
+    }
+
+    @Test
+    public void syncIsDueOnceItemsAreStale() {
+        mClock.advance(SyncPolicy.FRESHNESS_MILLIS - 1);
+        assertFalse(mPolicy.isSyncDue(START));
+        mClock.advance(1);
+        assertTrue(mPolicy.isSyncDue(START));
+    }
+
+    @Test
+    public void syncIsDueAfterTheClockWasSetBack() {
+        assertTrue(mPolicy.isSyncDue(START + 1));
+    }
+
+    @Test
+    public void firstSyncIsNotRateLimited() {
+        assertFalse(mPolicy.isRateLimited(0));
+    }
+
+    @Test
+    public void syncsAreRateLimitedForTheMinimumInterval() {
+        assertTrue(mPolicy.isRateLimited(START));
+        mClock.advance(SyncPolicy.MIN_INTERVAL_MILLIS - 1);
+        assertTrue(mPolicy.isRateLimited(START));
+        mClock.advance(1);
+        assertFalse(mPolicy.isRateLimited(START));
+    }
+
+    @Test
+    public void syncsAreNotRateLimitedAfterTheClockWasSetBack() {
+        assertFalse(mPolicy.isRateLimited(START + 1));
+    }
+
+    @Test
+    public void retriesAreBounded() {
+        assertTrue(mPolicy.shouldRetry(1));
+        assertTrue(mPolicy.shouldRetry(SyncPolicy.MAX_ATTEMPTS - 1));
+        assertFalse(mPolicy.shouldRetry(SyncPolicy.MAX_ATTEMPTS));
+    }
+
+    @Test
+    public void failuresToReachTheServerAreTransient() {
+        assertTrue(SyncPolicy.isTransient(new SocketTimeoutException()));
+        assertTrue(SyncPolicy.isTransient(new UnknownHostException()));
+        assertTrue(SyncPolicy.isTransient(new ConnectException()));
+        assertTrue(SyncPolicy.isTransient(new SocketException("Connection reset")));
+    }
+
+    @Test
+    public void badResponsesAreNotTransient() {
+        assertFalse(SyncPolicy.isTransient(new IOException("Unexpected response: 404")));
+        assertFalse(SyncPolicy.isTransient(new ProtocolException()));
+        assertFalse(SyncPolicy.isTransient(new EOFException("End of input")));
+    }
+}
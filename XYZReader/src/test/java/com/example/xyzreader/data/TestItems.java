@@ -0,0 +1,43 @@
+package com.example.xyzreader.data;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Items as the provider stores them, and shortcuts to read them back. */
+final class TestItems {
+    private TestItems() {
+    }
+
+    static ContentValues values(String serverId, String title, String author, String body) {
+        ContentValues values = new ContentValues();
+        values.put(ItemsContract.Items.SERVER_ID, serverId);
+        values.put(ItemsContract.Items.TITLE, title);
+        values.put(ItemsContract.Items.AUTHOR, author);
+        values.put(ItemsContract.Items.BODY, body);
+        values.put(ItemsContract.Items.THUMB_URL, "https://example.com/" + serverId + "-thumb.jpg");
+        values.put(ItemsContract.Items.PHOTO_URL, "https://example.com/" + serverId + ".jpg");
+        values.put(ItemsContract.Items.ASPECT_RATIO, 1.5f);
+        values.put(ItemsContract.Items.PUBLISHED_DATE, 1403222400000L);
+        return values;
+    }
+
+    /** Returns the titles of the items {@code uri} finds, in the order it returns them. */
+    static List<String> titles(ContentResolver resolver, Uri uri) {
+        ArrayList<String> titles = new ArrayList<>();
+        Cursor cursor = resolver.query(uri, new String[] { ItemsContract.Items.TITLE }, null,
+                null, null);
+        try {
+            while (cursor.moveToNext()) {
+                titles.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.xyzreader.ui;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class ArticleBodyRendererTest {
+    private static final String BODY = "<p>The <i>first</i> paragraph.</p>\r\n\r\n"
+            + "Second &amp; last,<br>on two lines.<img src=\"x.png\">\r\n";
+
+    @Test
+    public void plainTextHasEveryParagraphWithoutMarkup() {
+        assertEquals("The first paragraph.\n\nSecond & last,\non two lines.",
+                ArticleBodyRenderer.toPlainText(BODY, 1000));
+    }
+
+    @Test
+    public void plainTextIsCutAtTheLimit() {
+        assertEquals("The first paragraph.\n\nSec", ArticleBodyRenderer.toPlainText(BODY, 25));
+    }
+
+    @Test
+    public void plainTextIsNotCutInsideASurrogatePair() {
+        assertEquals("ab", ArticleBodyRenderer.toPlainText("ab\ud83d\udcd6c", 3));
+    }
+}
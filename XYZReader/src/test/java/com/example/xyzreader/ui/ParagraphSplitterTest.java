@@ -0,0 +1,140 @@
+package com.example.xyzreader.ui;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParagraphSplitterTest {
+    @Test
+    public void splitsAtBlankLines() {
+        assertEquals(Arrays.asList("One\r\nline.", "Two.", "Three."),
+                split("One\r\nline.\r\n\r\nTwo.\n\n\nThree.\n"));
+    }
+
+    @Test
+    public void splitsAtDoubleBreakTags() {
+        assertEquals(Arrays.asList("One<br/>line.", "Two."),
+                split("One<br/>line.<br /><BR>Two."));
+    }
+
+    @Test
+    public void splitsAtBlockElements() {
+        assertEquals(Arrays.asList("One", "Two", "Three"),
+                split("<p>One</p><h2>Two</h2><ul><li>Three</li></ul>"));
+    }
+
+    @Test
+    public void keepsInlineMarkup() {
+        assertEquals(Collections.singletonList("A <i>very</i> <a href=\"x\">short</a> one."),
+                split("A <i>very</i> <a href=\"x\">short</a> one."));
+    }
+
+    @Test
+    public void skipsScriptsAndStyles() {
+        assertEquals(Arrays.asList("Before", "After"),
+                split("Before<script>if (a < b) {}\n\nx();</script><STYLE>p {}</style>After"));
+    }
+
+    @Test
+    public void bodyWithoutTextHasNoParagraphs() {
+        assertEquals(Collections.<String>emptyList(), split(""));
+        assertEquals(Collections.<String>emptyList(), split(" \r\n<p></p><br>\n"));
+    }
+
+    @Test
+    public void cutsLongParagraphsAtBlanks() {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 3 * ParagraphSplitter.MAX_PARAGRAPH_LENGTH) {
+            body.append("word ");
+        }
+        String text = body.toString().trim();
+
+        List<String> paragraphs = split(text);
+
+        assertEquals(3, paragraphs.size());
+        for (String paragraph : paragraphs) {
+            assertTrue(paragraph.length() <= ParagraphSplitter.MAX_PARAGRAPH_LENGTH + 4);
+            assertFalse(paragraph.startsWith(" ") || paragraph.endsWith(" "));
+        }
+        assertEquals(text, join(paragraphs, " "));
+    }
+
+    @Test
+    public void hardCutsParagraphsWithoutBlanks() {
+        int hard = ParagraphSplitter.HARD_PARAGRAPH_LENGTH;
+        String text = repeat("x", 3 * hard + 5);
+
+        List<String> paragraphs = split(text);
+
+        assertEquals(4, paragraphs.size());
+        assertEquals(hard, paragraphs.get(0).length());
+        assertEquals(hard, paragraphs.get(1).length());
+        assertEquals(hard, paragraphs.get(2).length());
+        assertEquals(5, paragraphs.get(3).length());
+        assertEquals(text, join(paragraphs, ""));
+    }
+
+    @Test
+    public void hardCutsKeepSurrogatePairsWhole() {
+        // Off by one, so a cut at the hard length falls inside a pair
+        String text = "a" + repeat("\ud83d\udcd6", ParagraphSplitter.HARD_PARAGRAPH_LENGTH);
+
+        List<String> paragraphs = split(text);
+
+        assertTrue(paragraphs.size() > 1);
+        for (String paragraph : paragraphs) {
+            assertFalse(Character.isHighSurrogate(paragraph.charAt(paragraph.length() - 1)));
+            assertFalse(Character.isLowSurrogate(paragraph.charAt(0)));
+        }
+        assertEquals(text, join(paragraphs, ""));
+    }
+
+    @Test
+    public void hardCutsKeepCharacterReferencesWhole() {
+        String text = "ab" + repeat("&amp;", ParagraphSplitter.HARD_PARAGRAPH_LENGTH / 2);
+
+        List<String> paragraphs = split(text);
+
+        assertTrue(paragraphs.size() > 1);
+        for (String paragraph : paragraphs) {
+            assertTrue(paragraph, paragraph.endsWith(";"));
+        }
+        assertEquals(text, join(paragraphs, ""));
+    }
+
+    private static List<String> split(String html) {
+        ParagraphSplitter splitter = new ParagraphSplitter(html);
+        ArrayList<String> paragraphs = new ArrayList<>();
+        String paragraph;
+        while ((paragraph = splitter.next()) != null) {
+            paragraphs.add(paragraph);
+        }
+        return paragraphs;
+    }
+
+    private static String join(List<String> parts, String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            if (joined.length() > 0) {
+                joined.append(separator);
+            }
+            joined.append(part);
+        }
+        return joined.toString();
+    }
+
+    private static String repeat(String s, int count) {
+        StringBuilder repeated = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            repeated.append(s);
+        }
+        return repeated.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.xyzreader.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Article text for benchmarks, generated from a seed so that runs on different commits measure
+ * the same input. Bodies are shaped like the feed's: sentences of common words, paragraphs
+ * separated by blank lines, some line breaks written as {@code <br />} and some emphasis.
+ */
+public final class Corpus {
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "a", "in", "that", "it", "was", "he", "she", "for", "on",
+            "with", "as", "his", "her", "at", "by", "from", "they", "this", "had", "not", "but",
+            "which", "were", "all", "would", "there", "been", "one", "said", "little", "great",
+            "house", "river", "garden", "letter", "morning", "evening", "window", "door",
+            "lighthouse", "journey", "harbour", "station", "winter", "summer", "stranger",
+            "remembered", "whispered", "carefully", "suddenly", "together", "beautiful",
+            "afterwards", "certainly", "question", "answer", "silence", "shadow", "village",
+    };
+
+    private Corpus() {
+    }
+
+    /** Returns a body of about {@code length} characters. */
+    public static String body(long seed, int length) {
+        Random random = new Random(seed);
+        StringBuilder body = new StringBuilder(length + 200);
+        while (body.length() < length) {
+            int sentences = 2 + random.nextInt(6);
+            for (int i = 0; i < sentences; i++) {
+                sentence(random, body);
+                if (i == sentences - 1) {
+                    body.append(".\r\n\r\n");
+                } else if (random.nextInt(10) == 0) {
+                    body.append(".<br />");
+                } else {
+                    body.append(random.nextInt(8) == 0 ? ", " : ". ");
+                }
+            }
+        }
+        return body.toString();
+    }
+
+    /** Returns a title of a few words. */
+    public static String title(long seed) {
+        Random random = new Random(seed);
+        StringBuilder title = new StringBuilder();
+        int words = 2 + random.nextInt(4);
+        for (int i = 0; i < words; i++) {
+            String word = word(random);
+            title.append(i > 0 ? " " : "").append(Character.toUpperCase(word.charAt(0)))
+                    .append(word, 1, word.length());
+        }
+        return title.toString();
+    }
+
+    /** Returns a word of the corpus, the frequent ones more often. */
+    public static String word(Random random) {
+        // Squaring skews the choice towards the start of the list
+        double r = random.nextDouble();
+        return WORDS[(int) (r * r * WORDS.length)];
+    }
+
+    private static void sentence(Random random, StringBuilder body) {
+        int words = 6 + random.nextInt(14);
+        for (int i = 0; i < words; i++) {
+            String word = word(random);
+            if (i == 0) {
+                body.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else if (random.nextInt(40) == 0) {
+                body.append(" <i>").append(word).append("</i>");
+            } else {
+                body.append(' ').append(word);
+            }
+        }
+    }
+}
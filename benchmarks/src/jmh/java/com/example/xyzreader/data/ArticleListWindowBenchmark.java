@@ -0,0 +1,74 @@
+package com.example.xyzreader.data;
+
+import com.example.xyzreader.benchmarks.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scrolling the article list: building a window page by page as the list loader does, and
+ * reading every card's columns back from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ArticleListWindowBenchmark {
+    /** As ArticlePageSource.PAGE_SIZE, which needs Android. */
+    private static final int PAGE_SIZE = 40;
+    private static final int AUTHORS = 50;
+
+    @Param({ "1000", "10000", "50000" })
+    int articles;
+
+    private String[] mTitles;
+    private String[] mAuthors;
+    private ArticleListWindow mWindow;
+
+    @Setup
+    public void setUp() {
+        mTitles = new String[articles];
+        for (int i = 0; i < articles; i++) {
+            mTitles[i] = Corpus.title(i);
+        }
+        mAuthors = new String[AUTHORS];
+        for (int i = 0; i < AUTHORS; i++) {
+            mAuthors[i] = Corpus.title(-i);
+        }
+        mWindow = scroll();
+    }
+
+    @Benchmark
+    public ArticleListWindow scroll() {
+        ArticleListWindow window = null;
+        ArticleListWindow.Builder builder = ArticleListWindow.builder(PAGE_SIZE);
+        for (int i = 0; i < articles; i++) {
+            builder.add(articles - i, mTitles[i], mAuthors[i % AUTHORS], 1403222400000L - i,
+                    "https://example.com/" + i + ".jpg", 1.5f, i, null);
+            if ((i + 1) % PAGE_SIZE == 0 || i == articles - 1) {
+                window = builder.build(i < articles - 1);
+                builder = window.buildUpon();
+            }
+        }
+        return window;
+    }
+
+    @Benchmark
+    public long read() {
+        ArticleListWindow window = mWindow;
+        long sum = 0;
+        for (int i = 0; i < window.size(); i++) {
+            sum += window.getId(i) + window.getPublishedDate(i) + window.getContentHash(i)
+                    + window.getTitle(i).length() + window.getAuthor(i).length()
+                    + window.getThumbUrl(i).length() + (long) window.getAspectRatio(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.xyzreader.data;
+
+import com.example.xyzreader.benchmarks.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Compressing a body as it is stored by a sync, and expanding it as the detail view opens. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BodyCodecBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    int bodyLength;
+
+    private String mBody;
+    private byte[] mEncoded;
+
+    @Setup
+    public void setUp() {
+        mBody = Corpus.body(bodyLength, bodyLength);
+        mEncoded = BodyCodec.encode(mBody);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return BodyCodec.encode(mBody);
+    }
+
+    @Benchmark
+    public String decode() throws IOException {
+        return BodyCodec.decode(mEncoded);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.xyzreader.data;
+
+import com.example.xyzreader.benchmarks.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The work a search does outside of SQLite: parsing the query once, scoring every match, and
+ * building a snippet for each result shown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SearchTextBenchmark {
+    /** Columns of the index: title, author and body. */
+    private static final int COLUMNS = 3;
+    /** Rare enough words that the snippet has to look for them. */
+    private static final List<String> TERMS = Arrays.asList("lighthou", "stranger");
+
+    private byte[] mMatchinfo;
+
+    /** The body a snippet is built from. */
+    @State(Scope.Benchmark)
+    public static class Body {
+        @Param({ "1000", "10000", "100000" })
+        int bodyLength;
+
+        String mText;
+
+        @Setup
+        public void setUp() {
+            mText = Corpus.body(bodyLength, bodyLength);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        // matchinfo 'pcnx' of two phrases over 10000 rows
+        int phrases = TERMS.size();
+        ByteBuffer info = ByteBuffer.allocate(4 * (3 + 3 * phrases * COLUMNS))
+                .order(ByteOrder.nativeOrder());
+        info.putInt(phrases).putInt(COLUMNS).putInt(10000);
+        for (int i = 0; i < phrases * COLUMNS; i++) {
+            info.putInt(i % COLUMNS == 2 ? 3 : i % 2).putInt(400).putInt(120);
+        }
+        mMatchinfo = info.array();
+    }
+
+    @Benchmark
+    public String toMatchExpression() {
+        return SearchText.toMatchExpression("The Lighthouse, by a stranger!");
+    }
+
+    @Benchmark
+    public double score() {
+        return SearchText.score(mMatchinfo);
+    }
+
+    @Benchmark
+    public String snippet(Body body) {
+        return SearchText.snippet(body.mText, TERMS);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.xyzreader.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The decisions made for every sync request, which the list screen makes on the main thread
+ * each time it is opened or refreshed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SyncPolicyBenchmark {
+    private final SyncPolicy mPolicy = new SyncPolicy(SyncPolicy.SYSTEM_CLOCK);
+    private final long mLastSuccess = System.currentTimeMillis() - SyncPolicy.FRESHNESS_MILLIS / 2;
+    private final long mLastStart = System.currentTimeMillis() - SyncPolicy.MIN_INTERVAL_MILLIS;
+    private final IOException mTimeout = new SocketTimeoutException();
+    private final IOException mHttpError = new IOException("Unexpected response: 500");
+
+    @Benchmark
+    public boolean requestSync() {
+        return mPolicy.isSyncDue(mLastSuccess) && !mPolicy.isRateLimited(mLastStart);
+    }
+
+    @Benchmark
+    public boolean classifyFailure() {
+        return SyncPolicy.isTransient(mTimeout) && !SyncPolicy.isTransient(mHttpError);
+    }
+}
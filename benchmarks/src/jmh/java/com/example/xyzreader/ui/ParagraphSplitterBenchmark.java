@@ -0,0 +1,48 @@
+package com.example.xyzreader.ui;
+
+import com.example.xyzreader.benchmarks.Corpus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting a body into paragraphs: the first one, which is all the detail view waits for,
+ * and the whole body, as for sharing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParagraphSplitterBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    int bodyLength;
+
+    private String mBody;
+
+    @Setup
+    public void setUp() {
+        mBody = Corpus.body(bodyLength, bodyLength);
+    }
+
+    @Benchmark
+    public String firstParagraph() {
+        return new ParagraphSplitter(mBody).next();
+    }
+
+    @Benchmark
+    public int allParagraphs() {
+        ParagraphSplitter splitter = new ParagraphSplitter(mBody);
+        int length = 0;
+        for (String paragraph = splitter.next(); paragraph != null; paragraph = splitter.next()) {
+            length += paragraph.length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.xyzreader.feedserver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates feeds in the schema the app syncs, as a series of generations that differ by a
+ * set churn. Everything is derived from the seed, so a generation is the same on every run.
+ * <p>
+ * Articles are numbered; generation {@code g} has the articles from
+ * {@code g * replaced()} on, so each generation removes the oldest {@link #replaced()}
+ * articles and adds as many new ones. Besides, every article has the chance {@code churn} to
+ * be edited in each generation, which gives it a new body. Body lengths are log-normally
+ * distributed around a median, like those of real articles: mostly of similar length, with a
+ * few much longer ones.
+ */
+final class FeedGenerator {
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "a", "in", "that", "it", "was", "he", "she", "for", "on",
+            "with", "as", "his", "her", "at", "by", "from", "they", "this", "had", "not", "but",
+            "which", "were", "all", "would", "there", "been", "one", "said", "little", "great",
+            "house", "river", "garden", "letter", "morning", "evening", "window", "door",
+            "lighthouse", "journey", "harbour", "station", "winter", "summer", "stranger",
+            "remembered", "whispered", "carefully", "suddenly", "together", "beautiful",
+            "afterwards", "certainly", "question", "answer", "silence", "shadow", "village",
+    };
+    private static final String[] NAMES = {
+            "Ann", "Bo", "Carmen", "Dmitri", "Eliza", "Farid", "Grace", "Hiro", "Ines", "Jonas",
+    };
+    private static final String[] SURNAMES = {
+            "Abbott", "Brennan", "Castillo", "Dubois", "Eriksen", "Fujita", "Gallagher",
+    };
+    private static final double[] ASPECT_RATIOS = { 0.667, 1.0, 1.333, 1.5, 1.778 };
+    /** Publication date of article 0; later articles are an hour apart. */
+    private static final long FIRST_PUBLISHED_MILLIS = 1403222400000L;
+    private static final long PUBLISHED_INTERVAL_MILLIS = 60 * 60 * 1000L;
+    private static final int MIN_BODY_LENGTH = 200;
+
+    private final long mSeed;
+    private final int mArticles;
+    private final int mBodyMedian;
+    private final double mBodySigma;
+    private final int mBodyMax;
+    private final double mChurn;
+    private final int mReplaced;
+
+    /**
+     * @param articles number of articles in every generation
+     * @param bodyMedian median body length, in characters
+     * @param bodySigma spread of body lengths, the sigma of their logarithm
+     * @param bodyMax longest body, in characters
+     * @param churn share of the articles replaced between two generations, and the chance of
+     *              an article to be edited
+     */
+    FeedGenerator(long seed, int articles, int bodyMedian, double bodySigma, int bodyMax,
+            double churn) {
+        if (articles < 0 || bodyMedian <= 0 || bodySigma < 0 || bodyMax < MIN_BODY_LENGTH
+                || churn < 0 || churn > 1) {
+            throw new IllegalArgumentException("Invalid feed parameters");
+        }
+        mSeed = seed;
+        mArticles = articles;
+        mBodyMedian = bodyMedian;
+        mBodySigma = bodySigma;
+        mBodyMax = bodyMax;
+        mChurn = churn;
+        mReplaced = (int) Math.round(articles * churn);
+    }
+
+    int articles() {
+        return mArticles;
+    }
+
+    /** Number of articles removed and added between two generations. */
+    int replaced() {
+        return mReplaced;
+    }
+
+    /** Number of the oldest article of {@code generation}. */
+    int firstId(int generation) {
+        return generation * mReplaced;
+    }
+
+    /** Number of times article {@code id} was edited up to {@code generation}. */
+    int revision(int id, int generation) {
+        int added = mReplaced == 0 || id < mArticles ? 0 : (id - mArticles) / mReplaced + 1;
+        int revision = 0;
+        for (int g = added + 1; g <= generation; g++) {
+            if (random(id, g, 0).nextDouble() < mChurn) {
+                revision++;
+            }
+        }
+        return revision;
+    }
+
+    /** Width over height of the photo of article {@code id}. */
+    double aspectRatio(int id) {
+        return ASPECT_RATIOS[random(id, 0, 1).nextInt(ASPECT_RATIOS.length)];
+    }
+
+    /**
+     * Writes {@code generation} as a JSON array. Image URLs point to {@code imageBaseUrl},
+     * which ends with a slash, as {@code <id>.jpg} and {@code <id>-thumb.jpg}.
+     */
+    void write(int generation, String imageBaseUrl, Writer out) throws IOException {
+        // Feed dates carry no zone; the app reads them as local time.
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS",
+                Locale.US);
+        int first = firstId(generation);
+        out.write('[');
+        for (int id = first; id < first + mArticles; id++) {
+            if (id > first) {
+                out.write(',');
+            }
+            int revision = revision(id, generation);
+            out.write("{\"id\":\"");
+            out.write(Integer.toString(id));
+            out.write("\",\"title\":\"");
+            writeEscaped(out, title(id, revision));
+            out.write("\",\"author\":\"");
+            writeEscaped(out, author(id));
+            out.write("\",\"body\":\"");
+            writeEscaped(out, body(id, revision));
+            out.write("\",\"thumb\":\"");
+            writeEscaped(out, imageBaseUrl + id + "-thumb.jpg");
+            out.write("\",\"photo\":\"");
+            writeEscaped(out, imageBaseUrl + id + ".jpg");
+            out.write("\",\"aspect_ratio\":\"");
+            out.write(Double.toString(aspectRatio(id)));
+            out.write("\",\"published_date\":\"");
+            out.write(dateFormat.format(new Date(
+                    FIRST_PUBLISHED_MILLIS + id * PUBLISHED_INTERVAL_MILLIS)));
+            out.write("\"}");
+        }
+        out.write(']');
+    }
+
+    String title(int id, int revision) {
+        Random random = random(id, revision, 2);
+        StringBuilder title = new StringBuilder();
+        int words = 2 + random.nextInt(5);
+        for (int i = 0; i < words; i++) {
+            String word = word(random);
+            title.append(i > 0 ? " " : "").append(Character.toUpperCase(word.charAt(0)))
+                    .append(word, 1, word.length());
+        }
+        return title.toString();
+    }
+
+    String author(int id) {
+        Random random = random(id, 0, 3);
+        return NAMES[random.nextInt(NAMES.length)] + " "
+                + SURNAMES[random.nextInt(SURNAMES.length)];
+    }
+
+    /**
+     * Returns the body of a revision of article {@code id}: paragraphs separated by blank lines,
+     * some line breaks written as {@code <br />} and the odd word in italics.
+     */
+    String body(int id, int revision) {
+        Random random = random(id, revision, 4);
+        double length = mBodyMedian * Math.exp(mBodySigma * random.nextGaussian());
+        int target = (int) Math.max(MIN_BODY_LENGTH, Math.min(mBodyMax, length));
+        StringBuilder body = new StringBuilder(target + 200);
+        while (body.length() < target) {
+            if (body.length() > 0) {
+                body.append(random.nextInt(10) == 0 ? "<br />\r\n<br />\r\n" : "\r\n\r\n");
+            }
+            int sentences = 2 + random.nextInt(6);
+            for (int s = 0; s < sentences; s++) {
+                int words = 6 + random.nextInt(14);
+                for (int w = 0; w < words; w++) {
+                    String word = word(random);
+                    if (w == 0) {
+                        body.append(s > 0 ? " " : "").append(Character.toUpperCase(word.charAt(0)))
+                                .append(word, 1, word.length());
+                    } else if (random.nextInt(40) == 0) {
+                        body.append(" <i>").append(word).append("</i>");
+                    } else {
+                        body.append(' ').append(word);
+                    }
+                }
+                body.append('.');
+            }
+        }
+        return body.toString();
+    }
+
+    /** Returns a word, the frequent ones more often. */
+    private static String word(Random random) {
+        double r = random.nextDouble();
+        return WORDS[(int) (r * r * WORDS.length)];
+    }
+
+    /** Returns a random source for one property of one article, independent of the others. */
+    private Random random(long id, long revision, long property) {
+        // SplitMix64 finalizer over the inputs, so that neighbouring ids are unrelated
+        long z = mSeed;
+        for (long value : new long[] { id, revision, property }) {
+            z += 0x9e3779b97f4a7c15L + value;
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            z ^= z >>> 31;
+        }
+        return new Random(z);
+    }
+
+    private static void writeEscaped(Writer out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                    break;
+            }
+        }
+    }
+}
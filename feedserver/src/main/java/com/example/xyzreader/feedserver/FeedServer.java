@@ -0,0 +1,481 @@
+package com.example.xyzreader.feedserver;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Serves generated feeds in place of the live one, for syncing offline and against feeds far
+ * larger than the real one. Build the app with {@code -PfeedUrl=http://10.0.2.2:8080/feed.json}
+ * to sync from it on the emulator.
+ * <ul>
+ * <li>{@code GET /feed.json} returns the current generation, with an {@code ETag} and a
+ * {@code Last-Modified} date, and answers {@code If-None-Match} and
+ * {@code If-Modified-Since} with {@code 304 Not Modified} while the generation is the same.
+ * <li>{@code POST /advance} moves on to the next generation and returns its number.
+ * <li>{@code GET /images/<id>.jpg} and {@code <id>-thumb.jpg} return a generated photo of the
+ * article's aspect ratio.
+ * </ul>
+ * Responses can be delayed and throttled to act like a slow network, and the feed is streamed
+ * with chunked transfer encoding as it is generated, unless {@code --no-chunked} asks for a
+ * {@code Content-Length}.
+ */
+public class FeedServer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Pattern IMAGE_PATH = Pattern.compile("/images/(\\d+)(-thumb)?\\.jpg");
+    private static final int THUMB_WIDTH = 320;
+    private static final int PHOTO_WIDTH = 1024;
+
+    private final FeedGenerator mGenerator;
+    private final Options mOptions;
+    private final HttpServer mServer;
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+    private final Random mJitter = new Random();
+    private ScheduledExecutorService mAdvancer;
+
+    private int mGeneration;
+    /** When the current generation was made, whole seconds as HTTP dates have them. */
+    private long mGenerationMillis;
+
+    /** Settings of the server; the defaults serve a small feed at full speed. */
+    static final class Options {
+        int port = 8080;
+        long seed = 1;
+        int articles = 40;
+        int bodyMedian = 6000;
+        double bodySigma = 0.8;
+        int bodyMax = 500000;
+        double churn = 0.05;
+        /** Delay before responding, in milliseconds, plus a random part of up to jitter. */
+        int latencyMillis;
+        int jitterMillis;
+        /** Bytes per second of response bodies, or 0 for as fast as possible. */
+        int bandwidth;
+        boolean chunked = true;
+        boolean gzip = true;
+        /** Seconds between generations, or 0 to advance only when asked. */
+        int advanceSeconds;
+    }
+
+    FeedServer(Options options) throws IOException {
+        mOptions = options;
+        mGenerator = new FeedGenerator(options.seed, options.articles, options.bodyMedian,
+                options.bodySigma, options.bodyMax, options.churn);
+        mGenerationMillis = wholeSeconds(System.currentTimeMillis());
+        mServer = HttpServer.create(new InetSocketAddress(options.port), 0);
+        // A thread per request, so that delayed responses do not hold up others
+        mServer.setExecutor(mExecutor);
+        mServer.createContext("/feed.json", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serveFeed(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        mServer.createContext("/advance", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serveAdvance(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        mServer.createContext("/images/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serveImage(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+    }
+
+    void start() {
+        mServer.start();
+        if (mOptions.advanceSeconds > 0) {
+            mAdvancer = Executors.newSingleThreadScheduledExecutor();
+            mAdvancer.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    advance();
+                }
+            }, mOptions.advanceSeconds, mOptions.advanceSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    void stop() {
+        if (mAdvancer != null) {
+            mAdvancer.shutdownNow();
+        }
+        mServer.stop(0);
+        mExecutor.shutdownNow();
+    }
+
+    int port() {
+        return mServer.getAddress().getPort();
+    }
+
+    synchronized int advance() {
+        mGeneration++;
+        // A generation made in the same second as the last still needs a later date
+        mGenerationMillis = Math.max(wholeSeconds(System.currentTimeMillis()),
+                mGenerationMillis + 1000);
+        return mGeneration;
+    }
+
+    private void serveFeed(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+            return;
+        }
+        int generation;
+        long modifiedMillis;
+        synchronized (this) {
+            generation = mGeneration;
+            modifiedMillis = mGenerationMillis;
+        }
+        String etag = "W/\"" + Long.toHexString(mOptions.seed) + "-" + mOptions.articles + "-"
+                + generation + "\"";
+        Headers request = exchange.getRequestHeaders();
+        Headers response = exchange.getResponseHeaders();
+        response.set("ETag", etag);
+        response.set("Last-Modified", httpDate().format(new Date(modifiedMillis)));
+        // Cacheable, but to be revalidated on every use, which is what the 304 path is for
+        response.set("Cache-Control", "no-cache");
+        delay();
+
+        if (isNotModified(request, etag, modifiedMillis)) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+            return;
+        }
+
+        response.set("Content-Type", "application/json; charset=utf-8");
+        boolean gzip = mOptions.gzip && accepts(request, "gzip");
+        if (gzip) {
+            response.set("Content-Encoding", "gzip");
+        }
+        String imageBaseUrl = "http://" + host(exchange) + "/images/";
+        if (mOptions.chunked) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+            writeFeed(generation, imageBaseUrl, throttle(exchange.getResponseBody()), gzip);
+        } else {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writeFeed(generation, imageBaseUrl, body, gzip);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.size());
+            OutputStream out = throttle(exchange.getResponseBody());
+            body.writeTo(out);
+            out.flush();
+        }
+    }
+
+    private void writeFeed(int generation, String imageBaseUrl, OutputStream out, boolean gzip)
+            throws IOException {
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, 8192) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                compressed != null ? compressed : out, UTF_8), 8192);
+        mGenerator.write(generation, imageBaseUrl, writer);
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+    }
+
+    private void serveAdvance(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+            return;
+        }
+        byte[] body = (advance() + "\n").getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void serveImage(HttpExchange exchange) throws IOException {
+        Matcher matcher = IMAGE_PATH.matcher(exchange.getRequestURI().getPath());
+        if (!"GET".equals(exchange.getRequestMethod()) || !matcher.matches()) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+            return;
+        }
+        int id = Integer.parseInt(matcher.group(1));
+        int width = matcher.group(2) != null ? THUMB_WIDTH : PHOTO_WIDTH;
+        int height = (int) Math.round(width / mGenerator.aspectRatio(id));
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        Random random = new Random(id);
+        graphics.setPaint(new GradientPaint(0, 0, new Color(random.nextInt(0xffffff)),
+                width, height, new Color(random.nextInt(0xffffff))));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", body);
+
+        delay();
+        exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+        exchange.getResponseHeaders().set("Cache-Control", "max-age=86400");
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.size());
+        OutputStream out = throttle(exchange.getResponseBody());
+        body.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Returns whether the client's copy is current. As in RFC 7232, {@code If-Modified-Since}
+     * only counts if there is no {@code If-None-Match}.
+     */
+    private static boolean isNotModified(Headers request, String etag, long modifiedMillis) {
+        List<String> noneMatch = request.get("If-None-Match");
+        if (noneMatch != null) {
+            String opaque = opaqueTag(etag);
+            for (String header : noneMatch) {
+                for (String tag : header.split(",")) {
+                    tag = tag.trim();
+                    if (tag.equals("*") || opaqueTag(tag).equals(opaque)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        String modifiedSince = request.getFirst("If-Modified-Since");
+        if (modifiedSince != null) {
+            try {
+                return modifiedMillis <= httpDate().parse(modifiedSince).getTime();
+            } catch (ParseException ignored) {
+                // An invalid date is ignored
+            }
+        }
+        return false;
+    }
+
+    /** Strips the weak prefix, since If-None-Match compares weakly. */
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static boolean accepts(Headers request, String encoding) {
+        String accepted = request.getFirst("Accept-Encoding");
+        if (accepted == null) {
+            return false;
+        }
+        for (String coding : accepted.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(encoding)
+                    && !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String host(HttpExchange exchange) {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        return host != null ? host : "localhost:" + port();
+    }
+
+    private void delay() {
+        int millis = mOptions.latencyMillis;
+        if (mOptions.jitterMillis > 0) {
+            synchronized (mJitter) {
+                millis += mJitter.nextInt(mOptions.jitterMillis + 1);
+            }
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private OutputStream throttle(OutputStream out) {
+        return mOptions.bandwidth > 0 ? new ThrottledOutputStream(out, mOptions.bandwidth) : out;
+    }
+
+    private static long wholeSeconds(long millis) {
+        return millis / 1000 * 1000;
+    }
+
+    private static SimpleDateFormat httpDate() {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'",
+                Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        FeedServer server;
+        try {
+            server = new FeedServer(options);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        server.start();
+        System.out.println("Serving " + options.articles + " articles at http://localhost:"
+                + server.port() + "/feed.json");
+    }
+
+    private static final String USAGE = "Usage: FeedServer [--port 8080] [--seed 1]"
+            + " [--articles 40] [--body-median 6000] [--body-sigma 0.8] [--body-max 500000]"
+            + " [--churn 0.05] [--latency MILLIS] [--jitter MILLIS] [--bandwidth BYTES_PER_S]"
+            + " [--advance-every SECONDS] [--no-chunked] [--no-gzip]";
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        List<String> rest = new ArrayList<>();
+        for (String arg : args) {
+            rest.add(arg);
+        }
+        while (!rest.isEmpty()) {
+            String name = rest.remove(0);
+            if (name.equals("--no-chunked")) {
+                options.chunked = false;
+                continue;
+            }
+            if (name.equals("--no-gzip")) {
+                options.gzip = false;
+                continue;
+            }
+            if (rest.isEmpty()) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = rest.remove(0);
+            try {
+                switch (name) {
+                    case "--port":
+                        options.port = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    case "--articles":
+                        options.articles = Integer.parseInt(value);
+                        break;
+                    case "--body-median":
+                        options.bodyMedian = Integer.parseInt(value);
+                        break;
+                    case "--body-sigma":
+                        options.bodySigma = Double.parseDouble(value);
+                        break;
+                    case "--body-max":
+                        options.bodyMax = Integer.parseInt(value);
+                        break;
+                    case "--churn":
+                        options.churn = Double.parseDouble(value);
+                        break;
+                    case "--latency":
+                        options.latencyMillis = Integer.parseInt(value);
+                        break;
+                    case "--jitter":
+                        options.jitterMillis = Integer.parseInt(value);
+                        break;
+                    case "--bandwidth":
+                        options.bandwidth = Integer.parseInt(value);
+                        break;
+                    case "--advance-every":
+                        options.advanceSeconds = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+            }
+        }
+        return options;
+    }
+
+    /** Writes no faster than a number of bytes per second, in slices of a tenth of that. */
+    private static final class ThrottledOutputStream extends FilterOutputStream {
+        private final int mBytesPerSecond;
+        private final long mStartNanos = System.nanoTime();
+        private long mWritten;
+
+        ThrottledOutputStream(OutputStream out, int bytesPerSecond) {
+            super(out);
+            mBytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int slice = Math.max(1, mBytesPerSecond / 10);
+            while (len > 0) {
+                int n = Math.min(len, slice);
+                out.write(b, off, n);
+                off += n;
+                len -= n;
+                mWritten += n;
+                long dueNanos = mWritten * 1000000000L / mBytesPerSecond;
+                long aheadMillis = (dueNanos - (System.nanoTime() - mStartNanos)) / 1000000;
+                if (aheadMillis > 0) {
+                    out.flush();
+                    try {
+                        Thread.sleep(aheadMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted");
+                    }
+                }
+            }
+        }
+    }
+}
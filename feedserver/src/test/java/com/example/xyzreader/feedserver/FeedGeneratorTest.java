@@ -0,0 +1,108 @@
+package com.example.xyzreader.feedserver;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FeedGeneratorTest {
+    private static final String IMAGES = "http://localhost/images/";
+
+    @Test
+    public void sameSeedGivesTheSameFeed() throws IOException {
+        assertEquals(feed(new FeedGenerator(7, 50, 2000, 0.8, 50000, 0.1), 3),
+                feed(new FeedGenerator(7, 50, 2000, 0.8, 50000, 0.1), 3));
+    }
+
+    @Test
+    public void otherSeedGivesAnotherFeed() throws IOException {
+        assertNotEquals(feed(new FeedGenerator(7, 50, 2000, 0.8, 50000, 0.1), 0),
+                feed(new FeedGenerator(8, 50, 2000, 0.8, 50000, 0.1), 0));
+    }
+
+    @Test
+    public void generationsReplaceTheOldestArticles() {
+        FeedGenerator generator = new FeedGenerator(1, 1000, 2000, 0.8, 50000, 0.05);
+
+        assertEquals(50, generator.replaced());
+        assertEquals(0, generator.firstId(0));
+        assertEquals(150, generator.firstId(3));
+    }
+
+    @Test
+    public void articlesAreEditedAtTheChurnRate() {
+        FeedGenerator generator = new FeedGenerator(1, 10000, 2000, 0.8, 50000, 0.05);
+
+        int edited = 0;
+        for (int id = generator.firstId(1); id < generator.firstId(0) + 10000; id++) {
+            if (generator.revision(id, 1) != generator.revision(id, 0)) {
+                edited++;
+            }
+        }
+        assertTrue("edited " + edited, edited > 400 && edited < 550);
+    }
+
+    @Test
+    public void newArticlesStartAtTheFirstRevision() {
+        FeedGenerator generator = new FeedGenerator(1, 100, 2000, 0.8, 50000, 0.5);
+
+        // Article 100 is new in generation 1
+        assertEquals(0, generator.revision(100, 1));
+    }
+
+    @Test
+    public void editsChangeTheBody() {
+        FeedGenerator generator = new FeedGenerator(1, 100, 2000, 0.8, 50000, 0.05);
+
+        assertEquals(generator.body(5, 0), generator.body(5, 0));
+        assertNotEquals(generator.body(5, 0), generator.body(5, 1));
+        assertEquals(generator.author(5), generator.author(5));
+    }
+
+    @Test
+    public void bodyLengthsCentreOnTheMedian() {
+        FeedGenerator generator = new FeedGenerator(1, 1001, 3000, 0.8, 20000, 0);
+
+        int[] lengths = new int[generator.articles()];
+        for (int id = 0; id < lengths.length; id++) {
+            lengths[id] = generator.body(id, 0).length();
+        }
+        Arrays.sort(lengths);
+        int median = lengths[lengths.length / 2];
+        assertTrue("median " + median, median > 2700 && median < 3300);
+        // Bodies end with the paragraph that reaches the length, so may pass it a little
+        assertTrue("longest " + lengths[lengths.length - 1],
+                lengths[lengths.length - 1] < 20000 + 2000);
+    }
+
+    @Test
+    public void feedHasEveryArticleOfTheGeneration() throws IOException {
+        FeedGenerator generator = new FeedGenerator(1, 20, 500, 0.5, 5000, 0.1);
+
+        String feed = feed(generator, 2);
+
+        assertTrue(feed.startsWith("[{\"id\":\"4\","));
+        assertTrue(feed.endsWith("\"}]"));
+        assertEquals(20, feed.split("\"published_date\"").length - 1);
+        assertTrue(feed.contains("\"thumb\":\"" + IMAGES + "4-thumb.jpg\""));
+        // Line breaks are escaped, not written raw
+        assertTrue(feed.contains("\\r\\n\\r\\n"));
+        assertEquals(-1, feed.indexOf('\n'));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void churnAboveOneIsRejected() {
+        new FeedGenerator(1, 10, 500, 0.5, 5000, 1.5);
+    }
+
+    private static String feed(FeedGenerator generator, int generation) throws IOException {
+        StringWriter out = new StringWriter();
+        generator.write(generation, IMAGES, out);
+        return out.toString();
+    }
+}
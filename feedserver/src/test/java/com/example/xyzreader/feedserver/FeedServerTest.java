@@ -0,0 +1,157 @@
+package com.example.xyzreader.feedserver;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FeedServerTest {
+    private FeedServer mServer;
+
+    @After
+    public void tearDown() {
+        if (mServer != null) {
+            mServer.stop();
+        }
+    }
+
+    @Test
+    public void feedIsStreamedChunked() throws IOException {
+        start("--articles", "30");
+
+        HttpURLConnection connection = get("/feed.json");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+        assertTrue(connection.getHeaderField("ETag").startsWith("W/\""));
+        assertTrue(read(connection).endsWith("\"}]"));
+    }
+
+    @Test
+    public void feedHasALengthWithoutChunking() throws IOException {
+        start("--articles", "30", "--no-chunked");
+
+        HttpURLConnection connection = get("/feed.json");
+        String body = read(connection);
+
+        assertNull(connection.getHeaderField("Transfer-Encoding"));
+        assertEquals(body.length(), connection.getContentLength());
+    }
+
+    @Test
+    public void unchangedFeedIsNotModified() throws IOException {
+        start("--articles", "30");
+        HttpURLConnection first = get("/feed.json");
+        read(first);
+
+        HttpURLConnection byTag = get("/feed.json");
+        byTag.setRequestProperty("If-None-Match", first.getHeaderField("ETag"));
+        HttpURLConnection byDate = get("/feed.json");
+        byDate.setRequestProperty("If-Modified-Since", first.getHeaderField("Last-Modified"));
+
+        assertEquals(304, byTag.getResponseCode());
+        assertEquals(304, byDate.getResponseCode());
+    }
+
+    @Test
+    public void nextGenerationIsModified() throws IOException {
+        start("--articles", "30");
+        HttpURLConnection first = get("/feed.json");
+        read(first);
+
+        HttpURLConnection advance = get("/advance");
+        advance.setRequestMethod("POST");
+        assertEquals("1\n", read(advance));
+        HttpURLConnection byTag = get("/feed.json");
+        byTag.setRequestProperty("If-None-Match", first.getHeaderField("ETag"));
+        HttpURLConnection byDate = get("/feed.json");
+        byDate.setRequestProperty("If-Modified-Since", first.getHeaderField("Last-Modified"));
+
+        assertEquals(200, byTag.getResponseCode());
+        assertEquals(200, byDate.getResponseCode());
+    }
+
+    @Test
+    public void gzipIsUsedWhenAccepted() throws IOException {
+        start("--articles", "30");
+
+        HttpURLConnection connection = get("/feed.json");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+    }
+
+    @Test
+    public void responsesAreDelayed() throws IOException {
+        start("--articles", "1", "--latency", "300");
+
+        long start = System.nanoTime();
+        read(get("/feed.json"));
+
+        assertTrue((System.nanoTime() - start) / 1000000 >= 300);
+    }
+
+    @Test
+    public void bandwidthIsLimited() throws IOException {
+        start("--articles", "20", "--body-median", "1000", "--bandwidth", "50000");
+
+        long start = System.nanoTime();
+        String body = read(get("/feed.json"));
+        long millis = (System.nanoTime() - start) / 1000000;
+
+        assertTrue(millis + "ms for " + body.length(),
+                millis >= body.length() * 1000L / 50000 - 100);
+    }
+
+    @Test
+    public void imagesAreServed() throws IOException {
+        start("--articles", "1");
+
+        HttpURLConnection connection = get("/images/0-thumb.jpg");
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("image/jpeg", connection.getContentType());
+        assertEquals(404, get("/images/x.jpg").getResponseCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOptionIsRejected() {
+        FeedServer.parse(new String[] { "--colour", "blue" });
+    }
+
+    private void start(String... args) throws IOException {
+        String[] withPort = new String[args.length + 2];
+        withPort[0] = "--port";
+        withPort[1] = "0";
+        System.arraycopy(args, 0, withPort, 2, args.length);
+        mServer = new FeedServer(FeedServer.parse(withPort));
+        mServer.start();
+    }
+
+    private HttpURLConnection get(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + mServer.port() + path)
+                .openConnection();
+    }
+
+    private static String read(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getInputStream();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}